@@ -1,5 +1,6 @@
 package dev.drtheo.ast;
 
+import dev.drtheo.ast.data.Annotation;
 import dev.drtheo.ast.data.Arg;
 import dev.drtheo.ast.util.JavaBuilder;
 import dev.drtheo.ast.util.Util;
@@ -8,13 +9,35 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Generates the AST classes from a spec with one line per node type:
+ * <pre>
+ * Name : Type field, Type field
+ * </pre>
+ * The fields are passed to the node's constructor. Indented lines below a
+ * type add fields that are filled in later:
+ * <pre>
+ *     resolvable
+ *     /** The documentation of the next field's getter. *&#47;
+ *     mutable Type field
+ *     final Type field = initializer
+ * </pre>
+ * A resolvable node implements {@code Resolvable}, holding the depth and
+ * slot the resolver binds it to. A mutable field gets a getter and a
+ * setter, and a final one just a getter.
+ */
 public class GenerateAST {
 
+    private static final int LINE_WIDTH = 80;
+
+    private record Type(String name, String fields, boolean resolvable, List<Annotation> annotations) { }
+
     public static void main(String[] args) throws IOException {
         if (args.length < 2) {
             System.err.println("Usage: generate_ast <output directory> <input files>");
@@ -39,22 +62,40 @@ public class GenerateAST {
         String path = output + "/" + baseName + ".java";
 
         try (JavaBuilder writer = new JavaBuilder(path, StandardCharsets.UTF_8)) {
-            List<String> types = text.lines().filter(line -> {
+            List<Type> types = new ArrayList<>();
+            String doc = null;
+
+            for (String line : text.lines().toList()) {
                 if (line.startsWith("package") || line.startsWith("import")) {
                     writer.header(line);
-                    return false;
-                }
+                } else if (line.isBlank()) {
+                    continue;
+                } else if (!Character.isWhitespace(line.charAt(0))) {
+                    String[] parts = line.split(":");
+                    types.add(new Type(parts[0].trim(), parts[1].trim(), false, new ArrayList<>()));
+                } else {
+                    String annotation = line.trim();
+                    Type type = types.get(types.size() - 1);
 
-                return line.trim().length() > 0;
-            }).toList();
+                    if (annotation.startsWith("/**")) {
+                        doc = annotation.substring(3, annotation.length() - 2).trim();
+                    } else if (annotation.equals("resolvable")) {
+                        types.set(types.size() - 1, new Type(type.name(), type.fields(), true, type.annotations()));
+                    } else {
+                        type.annotations().add(parseAnnotation(annotation, doc));
+                        doc = null;
+                    }
+                }
+            }
 
             writer.clazz("public abstract", baseName);
             defineVisitor(writer, baseName, types);
 
-            for (String type : types) {
-                String className = type.split(":")[0].trim();
-                String fields = type.split(":")[1].trim();
-                defineType(writer, baseName, className, fields);
+            if (types.stream().anyMatch(Type::resolvable))
+                defineResolvable(writer);
+
+            for (Type type : types) {
+                defineType(writer, baseName, type);
             }
 
             writer.newline();
@@ -63,20 +104,45 @@ public class GenerateAST {
         }
     }
 
-    private static void defineVisitor(JavaBuilder writer, String baseName, List<String> types) {
+    /**
+     * Parses {@code mutable Type name} or {@code final Type name = value}.
+     */
+    private static Annotation parseAnnotation(String annotation, String doc) {
+        String[] definition = annotation.split("=", 2);
+        String[] parts = definition[0].trim().split(" ");
+        String initializer = definition.length > 1 ? definition[1].trim() : null;
+
+        return switch (parts[0]) {
+            case "mutable" -> new Annotation(true, parts[1], parts[2], initializer, doc);
+            case "final" -> new Annotation(false, parts[1], parts[2], initializer, doc);
+            default -> throw new IllegalArgumentException("Unknown annotation '" + annotation + "'.");
+        };
+    }
+
+    private static void defineVisitor(JavaBuilder writer, String baseName, List<Type> types) {
         writer.interf4ce("public", "Visitor<R>");
 
-        for (String type : types) {
-            String typeName = type.split(":")[0].trim();
-            writer.println("R visit" + typeName + baseName + "(" +
-                    typeName + " " + baseName.toLowerCase() + ")");
+        for (Type type : types) {
+            writer.println("R visit" + type.name() + baseName + "(" +
+                    type.name() + " " + baseName.toLowerCase() + ")");
         }
 
         writer.end();
     }
 
-    private static void defineType(JavaBuilder writer, String baseName, String className, String rawFields) {
-        writer.clazz("public static", className, "extends " + baseName);
+    private static void defineResolvable(JavaBuilder writer) {
+        writer.newline();
+        writeDoc(writer, "A variable access the resolver binds to a local frame slot. " +
+                "Accesses that are never resolved (depth -1) refer to globals.");
+        writer.begin("public interface Resolvable");
+        writer.println("void resolve(int depth, int slot)");
+        writer.end();
+    }
+
+    private static void defineType(JavaBuilder writer, String baseName, Type type) {
+        String className = type.name();
+        String rawFields = type.fields();
+        writer.clazz("public static", className, "extends " + baseName + (type.resolvable() ? " implements Resolvable" : ""));
 
         // Store parameters in fields.
         Set<Arg> args = new HashSet<>();
@@ -85,19 +151,39 @@ public class GenerateAST {
             args.add(new Arg(parts[0], parts[1]));
         }
 
-        writeFields(writer, args);
+        writeFields(writer, args, type);
         writeConstructor(writer, className, args, rawFields);
         writeGetters(writer, args);
+
+        if (type.resolvable()) {
+            writeGetters(writer, List.of(new Arg("int", "depth"), new Arg("int", "slot")));
+        }
+
+        writeAnnotations(writer, type.annotations());
+
+        if (type.resolvable())
+            writeResolve(writer);
+
         writeVisitor(writer, className, baseName);
 
         writer.end();
     }
 
-    private static void writeFields(JavaBuilder writer, Collection<Arg> args) {
+    private static void writeFields(JavaBuilder writer, Collection<Arg> args, Type type) {
         for (Arg arg : args) {
             writer.println("private final " + arg);
         }
 
+        if (type.resolvable()) {
+            writer.println("private int depth = -1");
+            writer.println("private int slot");
+        }
+
+        for (Annotation annotation : type.annotations()) {
+            String field = "private " + (annotation.mutable() ? "" : "final ") + annotation;
+            writer.println(annotation.initializer() != null ? field + " = " + annotation.initializer() : field);
+        }
+
         writer.newline();
     }
 
@@ -120,6 +206,64 @@ public class GenerateAST {
         }
     }
 
+    private static void writeAnnotations(JavaBuilder writer, Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            String name = Util.capitalize(annotation.name());
+            String getter = (annotation.type().equals("boolean") ? "is" : "get") + name;
+
+            writer.newline();
+
+            if (annotation.doc() != null)
+                writeDoc(writer, annotation.doc());
+
+            writer.begin("public " + annotation.type() + " " + getter + "()");
+            writer.println("return this." + annotation.name());
+            writer.end();
+
+            if (annotation.mutable()) {
+                writer.newline();
+                writer.begin("public void set" + name + "(" + annotation + ")");
+                writer.println("this." + annotation.name() + " = " + annotation.name());
+                writer.end();
+            }
+        }
+    }
+
+    private static void writeResolve(JavaBuilder writer) {
+        writer.newline();
+        writer.raw("@Override");
+        writer.begin("public void resolve(int depth, int slot)");
+        writer.println("this.depth = depth");
+        writer.println("this.slot = slot");
+        writer.end();
+    }
+
+    /**
+     * Writes {@code text} as a doc comment, wrapped to fit the line width at
+     * the writer's current indentation.
+     */
+    private static void writeDoc(JavaBuilder writer, String text) {
+        int width = LINE_WIDTH - writer.getIndentation() - " * ".length();
+        StringBuilder line = new StringBuilder();
+
+        writer.raw("/**");
+
+        for (String word : text.split(" ")) {
+            if (line.length() > 0 && line.length() + 1 + word.length() > width) {
+                writer.raw(" * " + line);
+                line.setLength(0);
+            }
+
+            if (line.length() > 0)
+                line.append(' ');
+
+            line.append(word);
+        }
+
+        writer.raw(" * " + line);
+        writer.raw(" */");
+    }
+
     private static void writeVisitor(JavaBuilder writer, String className, String baseName) {
         writer.newline();
         writer.raw("@Override");
@@ -0,0 +1,17 @@
+package dev.drtheo.ast.data;
+
+/**
+ * A field of a node that isn't passed to its constructor, but filled in
+ * after parsing by the resolver or interpreter, or initialised once with
+ * {@code initializer}.
+ *
+ * @param mutable whether the field has a setter.
+ * @param doc     the documentation of its getter, or null.
+ */
+public record Annotation(boolean mutable, String type, String name, String initializer, String doc) {
+
+    @Override
+    public String toString() {
+        return type + " " + name;
+    }
+}
@@ -21,6 +21,13 @@ public class JavaBuilder extends PrintWriter {
         this.elevation--;
     }
 
+    /**
+     * The number of columns lines are currently indented by.
+     */
+    public int getIndentation() {
+        return this.elevation * spaces.length();
+    }
+
     public void header(String line) {
         this.println(line);
 
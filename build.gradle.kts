@@ -1,6 +1,23 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 group "eu.jameshamilton"
 version "0.1"
+
+repositories {
+    mavenCentral()
+}
+
+jmh {
+    // Run with `./gradlew jmh`; pass `-PjmhIncludes=<regex>` to select benchmarks.
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes") as String)
+    }
+
+    // `-PjmhProfilers=gc` reports the allocation rate alongside the timings.
+    if (project.hasProperty("jmhProfilers")) {
+        profilers.addAll((project.property("jmhProfilers") as String).split(","))
+    }
+}
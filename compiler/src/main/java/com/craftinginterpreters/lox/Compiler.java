@@ -41,12 +41,14 @@ import static com.craftinginterpreters.lox.Lox.hadRuntimeError;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_CALLABLE;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_CAPTURED;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_CLASS;
+import static com.craftinginterpreters.lox.LoxConstants.LOX_CONCAT_STRING;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_FUNCTION;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_INSTANCE;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_INVOKER;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_MAIN_CLASS;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_METHOD;
 import static com.craftinginterpreters.lox.LoxConstants.LOX_NATIVE;
+import static com.craftinginterpreters.lox.LoxConstants.LOX_OUTPUT;
 import static com.craftinginterpreters.lox.lexer.TokenType.FUN;
 import static com.craftinginterpreters.lox.lexer.TokenType.IDENTIFIER;
 import static java.util.Collections.emptyList;
@@ -73,12 +75,14 @@ public class Compiler {
             lox.LoxCallable.class,
             lox.LoxCaptured.class,
             lox.LoxClass.class,
+            lox.LoxConcatString.class,
             lox.LoxException.class,
             lox.LoxFunction.class,
             lox.LoxInstance.class,
             lox.LoxInvoker.class,
             lox.LoxMethod.class,
-            lox.LoxNative.class
+            lox.LoxNative.class,
+            lox.LoxOutput.class
         );
 
         Stmt.Function mainFunction = new Stmt.Function(
@@ -111,7 +115,7 @@ public class Compiler {
                                     "(L" + LOX_CALLABLE + ";)V"
                             ).aconst_null().invokeinterface(LOX_CALLABLE, "invoke",
                                     "([Ljava/lang/Object;)Ljava/lang/Object;"
-                            ).pop().return_(), __ -> __
+                            ).pop().invokestatic(LOX_OUTPUT, "flush", "()V").return_(), __ -> __
                     .catch_("java/lang/StackOverflowError", it -> {
                         if (!DEBUG)
                             it.pop();
@@ -119,7 +123,8 @@ public class Compiler {
                         if (DEBUG)
                             it.invokevirtual("java/lang/Throwable", "printStackTrace", "()V");
 
-                        return it.getstatic("java/lang/System", "err", "Ljava/io/PrintStream;")
+                        return it.invokestatic(LOX_OUTPUT, "flush", "()V")
+                                .getstatic("java/lang/System", "err", "Ljava/io/PrintStream;")
                                 .ldc("Stack overflow.").invokevirtual("java/io/PrintStream",
                                         "println", "(Ljava/lang/Object;)V"
                                 ).goto_(error);
@@ -127,7 +132,8 @@ public class Compiler {
                         if (DEBUG)
                             it.dup();
 
-                        it.getstatic("java/lang/System", "err", "Ljava/io/PrintStream;").swap()
+                        it.invokestatic(LOX_OUTPUT, "flush", "()V")
+                          .getstatic("java/lang/System", "err", "Ljava/io/PrintStream;").swap()
                           .invokevirtual("java/lang/Throwable", "getMessage", "()Ljava/lang/String;")
                           .invokevirtual("java/io/PrintStream", "println", "(Ljava/lang/Object;)V");
 
@@ -588,9 +594,7 @@ public class Compiler {
                         .invokevirtual("java/lang/Object", "toString", "()Ljava/lang/String;")
                         // S
                         .label(end)
-                        .getstatic("java/lang/System", "out", "Ljava/io/PrintStream;")
-                        .swap()
-                        .invokevirtual("java/io/PrintStream", "println", "(Ljava/lang/Object;)V");
+                        .invokestatic(LOX_OUTPUT, "println", "(Ljava/lang/String;)V");
                     }
                 );
         }
@@ -690,10 +694,10 @@ public class Compiler {
 
             return switch (expr.getOperator().type()) {
                 case EQUAL_EQUAL -> composer
-                    .invokestatic("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z")
+                    .invokestatic(LOX_CONCAT_STRING, "isEqual", "(Ljava/lang/Object;Ljava/lang/Object;)Z")
                     .box("java/lang/Boolean");
                 case BANG_EQUAL -> composer
-                    .invokestatic("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z")
+                    .invokestatic(LOX_CONCAT_STRING, "isEqual", "(Ljava/lang/Object;Ljava/lang/Object;)Z")
                     .iconst_1()
                     .ixor()
                     .box("java/lang/Boolean");
@@ -702,11 +706,7 @@ public class Compiler {
                     var bothDouble = composer.createLabel();
                     var checkAbIsString = composer.createLabel();
                     var checkBaIsString = composer.createLabel();
-                    var bothString = composer.createLabel();
-                    var throwException = composer.createLabel();
-                    var throwExceptionPop = composer.createLabel();
                     var end = composer.createLabel();
-                    //noinspection unchecked
                     composer
                             .dup()
                             // A, B, B
@@ -743,31 +743,14 @@ public class Compiler {
                             .swap()
                             .label(checkAbIsString)
                             // A, B
+                            .invokestatic(LOX_CONCAT_STRING, "concat", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;")
+                            // A + B, or null if they aren't both strings
                             .dup()
-                            // A, B, B
-                            .instanceof_("java/lang/String")
-                            // A, B, Z
-                            .ifeq(throwExceptionPop)
-                            // A, B
-                            .swap()
-                            // B, A
-                            .instanceof_("java/lang/String")
-                            // B, Z
-                            .ifeq(throwException)
-                            // B
+                            // S, S
+                            .ifnonnull(end)
+                            // null
                             .pop()
                             //
-                            .label(bothString)
-                            .concat(
-                                CompactCodeAttributeComposer::aload_0,
-                                CompactCodeAttributeComposer::aload_1
-                            )
-                            .goto_(end)
-
-                            .label(throwExceptionPop)
-                            .pop()
-                            .label(throwException)
-                            .pop()
                             .loxthrow("Operands must be two numbers or two strings.")
 
                             .label(end);
@@ -0,0 +1,161 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.CompiledFunction;
+import com.craftinginterpreters.lox.interpreter.CompiledLoop;
+import com.craftinginterpreters.lox.interpreter.TierCompiler;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.util.RuntimeError;
+import lox.LoxCallable;
+import lox.LoxConcatString;
+import lox.LoxException;
+import lox.LoxOutput;
+import proguard.classfile.ClassPool;
+import proguard.classfile.util.ClassPoolClassLoader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.LoxConstants.LOX_MAIN_CLASS;
+import static com.craftinginterpreters.lox.lexer.TokenType.EQUAL_EQUAL;
+import static com.craftinginterpreters.lox.lexer.TokenType.IDENTIFIER;
+import static com.craftinginterpreters.lox.lexer.TokenType.RETURN;
+
+/**
+ * Compiles the functions and loops the tiered interpreter finds hot.
+ * <p>
+ * Each is compiled as a program of its own whose top level returns a
+ * function, so running the program's main class hands back the compiled
+ * code. A loop becomes a function of the variables it uses from outside.
+ * Strings the compiled code built are flattened on their way back to the
+ * interpreter.
+ */
+public class HotFunctionCompiler implements TierCompiler {
+
+    private static final Object[] RUN_LOOP = { null };
+
+    @Override
+    public CompiledFunction compile(Stmt.Function function) {
+        LoxCallable compiled = compileProgram(List.of(function, return_(function.getName())));
+
+        if (compiled == null)
+            return null;
+
+        return arguments -> {
+            try {
+                return LoxConcatString.flatten(compiled.invoke(arguments));
+            } catch (LoxException e) {
+                throw runtimeError(e);
+            }
+        };
+    }
+
+    /**
+     * Compiles {@code loop} into
+     * <pre>
+     * fun $osr(variables...) {
+     *   fun $loop($k) {
+     *     if ($k == nil) { loop; return nil; }
+     *     if ($k == 0) return variables[0];
+     *     ...
+     *   }
+     *   return $loop;
+     * }
+     * </pre>
+     * so the compiled loop works on its own copies of the variables, which
+     * {@code $loop} reads back afterwards.
+     */
+    @Override
+    public CompiledLoop compile(Stmt.While loop, List<Token> variables) {
+        int line = variables.isEmpty() ? 0 : variables.get(0).line();
+        Token osrName = new Token(IDENTIFIER, "$osr", null, line);
+        Token loopName = new Token(IDENTIFIER, "$loop", null, line);
+        Token key = new Token(IDENTIFIER, "$k", null, line);
+        Token equal = new Token(EQUAL_EQUAL, "==", null, line);
+
+        List<Stmt> dispatch = new ArrayList<>();
+        dispatch.add(new Stmt.If(
+                new Expr.Binary(new Expr.Variable(key), equal, new Expr.Literal(null)),
+                new Stmt.Block(List.of(loop, new Stmt.Return(new Token(RETURN, "return", null, line), null))),
+                null));
+
+        for (int i = 0; i < variables.size(); i++) {
+            dispatch.add(new Stmt.If(
+                    new Expr.Binary(new Expr.Variable(key), equal, new Expr.Literal((double) i)),
+                    return_(variables.get(i)),
+                    null));
+        }
+
+        Stmt.Function loopFunction = new Stmt.Function(loopName, List.of(key), dispatch);
+        Stmt.Function osrFunction = new Stmt.Function(osrName, variables, List.of(loopFunction, return_(loopName)));
+
+        LoxCallable osr = compileProgram(List.of(osrFunction, return_(osrName)));
+
+        if (osr == null)
+            return null;
+
+        return values -> {
+            LoxCallable run = (LoxCallable) osr.invoke(values);
+
+            try {
+                run.invoke(RUN_LOOP);
+            } catch (LoxException e) {
+                throw runtimeError(e);
+            } finally {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = LoxConcatString.flatten(run.invoke(new Object[] { (double) i }));
+                }
+            }
+        };
+    }
+
+    @Override
+    public void attach(Output output) {
+        // Print into the interpreter's buffer, so that compiled and
+        // interpreted output stay in order.
+        LoxOutput.redirect(output::println, output::flush);
+    }
+
+    /**
+     * Compiles and runs {@code program}, returning the function its top
+     * level returns, or null if it didn't compile.
+     */
+    private static LoxCallable compileProgram(Collection<Stmt> program) {
+        // The compiler reports to the process-wide error flags, which the
+        // Lox class guards; they are put back afterwards.
+        synchronized (Lox.class) {
+            boolean hadError = Lox.hadError;
+            boolean hadRuntimeError = Lox.hadRuntimeError;
+
+            try {
+                ClassPool classPool = new Compiler().compile(program);
+
+                if (classPool == null)
+                    return null;
+
+                Class<?> main = new ClassPoolClassLoader(classPool).loadClass(LOX_MAIN_CLASS);
+                LoxCallable instance = (LoxCallable) main.getConstructor(LoxCallable.class).newInstance((Object) null);
+
+                return instance.invoke(null) instanceof LoxCallable compiled ? compiled : null;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Leave the code to the interpreter.
+                return null;
+            } finally {
+                Lox.hadError = hadError;
+                Lox.hadRuntimeError = hadRuntimeError;
+            }
+        }
+    }
+
+    private static Stmt.Return return_(Token name) {
+        return new Stmt.Return(new Token(RETURN, "return", null, name.line()), new Expr.Variable(name));
+    }
+
+    private static RuntimeError runtimeError(LoxException e) {
+        String message = e.getMessage();
+        return new RuntimeError(e.getLine(), message.substring(0, message.lastIndexOf("\n[line ")));
+    }
+}
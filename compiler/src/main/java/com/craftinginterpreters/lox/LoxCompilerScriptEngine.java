@@ -0,0 +1,191 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.runtime.WriterOutput;
+import com.craftinginterpreters.lox.script.LoxScriptEngine;
+import com.craftinginterpreters.lox.util.RuntimeError;
+import lox.LoxCallable;
+import lox.LoxException;
+import lox.LoxOutput;
+import proguard.classfile.ClassPool;
+import proguard.classfile.util.ClassPoolClassLoader;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.LoxConstants.LOX_MAIN_CLASS;
+
+/**
+ * Runs Lox scripts compiled to JVM classes. Compiling a script takes longer
+ * than for the interpreter, so this engine suits scripts that are compiled
+ * once and evaluated many times.
+ * <p>
+ * Compiled code resolves every name when it is compiled, so scripts can't
+ * use the context's bindings, and evaluating one with any bound names
+ * fails; scripts only print to the context's writer. The first checker or
+ * compiler error is thrown, and any others go to the engine's error writer.
+ */
+public class LoxCompilerScriptEngine extends LoxScriptEngine {
+
+    public LoxCompilerScriptEngine(ScriptEngineFactory factory) {
+        super(factory);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        Collection<Stmt> statements = parse(script);
+        CompileErrors errors = new CompileErrors();
+        ClassPool classPool;
+
+        // The compiler reports through the Lox class, which sends its errors
+        // here and raises its process-wide flags while this holds its lock;
+        // both are put back afterwards.
+        synchronized (Lox.class) {
+            boolean hadError = Lox.hadError;
+            boolean hadRuntimeError = Lox.hadRuntimeError;
+            Lox.hadError = false;
+            Lox.hadRuntimeError = false;
+            Lox.reportTo(errors);
+
+            try {
+                new Checker().execute(statements);
+                classPool = Lox.hadError ? null : new Compiler().compile(statements);
+            } catch (LoxException e) {
+                throw new ScriptException(e.getMessage());
+            } finally {
+                Lox.reportTo(null);
+                Lox.hadError = hadError;
+                Lox.hadRuntimeError = hadRuntimeError;
+            }
+        }
+
+        errors.check(getContext().getErrorWriter());
+
+        if (classPool == null)
+            throw new ScriptException("The script didn't compile.");
+
+        try {
+            Class<?> main = new ClassPoolClassLoader(classPool).loadClass(LOX_MAIN_CLASS);
+            return new CompiledClasses(this, main.getConstructor(LoxCallable.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    /**
+     * Collects the checker's and compiler's errors, and the line of the first.
+     */
+    private static final class CompileErrors implements ErrorReporter {
+
+        private final List<String> messages = new ArrayList<>();
+        private int line = -1;
+
+        @Override
+        public void error(int line, String message) {
+            at(line);
+            ErrorReporter.super.error(line, message);
+        }
+
+        @Override
+        public void error(Token token, String message) {
+            at(token.line());
+            ErrorReporter.super.error(token, message);
+        }
+
+        @Override
+        public void runtimeError(RuntimeError error) {
+            at(error.getLine());
+            ErrorReporter.super.runtimeError(error);
+        }
+
+        private void at(int line) {
+            if (this.line < 0)
+                this.line = line;
+        }
+
+        @Override
+        public void reportError(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void reportRuntimeError(String message) {
+            messages.add(message);
+        }
+
+        /**
+         * Throws the first error, if there were any, after writing the rest
+         * to {@code writer}.
+         */
+        private void check(Writer writer) throws ScriptException {
+            if (messages.isEmpty())
+                return;
+
+            PrintWriter out = new PrintWriter(writer);
+            messages.stream().skip(1).forEach(out::println);
+            out.flush();
+
+            throw new ScriptException(messages.get(0), null, line);
+        }
+    }
+
+    /**
+     * A script's loaded classes. Its globals are static fields of the main
+     * class, so evaluations of one script take turns.
+     */
+    private static class CompiledClasses extends CompiledScript {
+
+        private final ScriptEngine engine;
+        private final Constructor<?> main;
+
+        private CompiledClasses(ScriptEngine engine, Constructor<?> main) {
+            this.engine = engine;
+            this.main = main;
+        }
+
+        @Override
+        public synchronized Object eval(ScriptContext context) throws ScriptException {
+            // Compiled code has no globals to seed from bindings or copy back
+            // to them, so refuse them rather than ignore them.
+            if (hasBindings(context, ScriptContext.GLOBAL_SCOPE) || hasBindings(context, ScriptContext.ENGINE_SCOPE))
+                throw new ScriptException("Compiled scripts can't use bindings.");
+
+            Output output = new WriterOutput(context.getWriter());
+            LoxOutput.redirect(output::println, output::flush);
+
+            try {
+                ((LoxCallable) main.newInstance((Object) null)).invoke(null);
+                return null;
+            } catch (LoxException e) {
+                throw new ScriptException(e.getMessage());
+            } catch (ReflectiveOperationException e) {
+                throw new ScriptException(e);
+            } finally {
+                // Flushes the writer on the way.
+                LoxOutput.redirect(null, null);
+            }
+        }
+
+        private static boolean hasBindings(ScriptContext context, int scope) {
+            Bindings bindings = context.getBindings(scope);
+            return bindings != null && !bindings.isEmpty();
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return engine;
+        }
+    }
+}
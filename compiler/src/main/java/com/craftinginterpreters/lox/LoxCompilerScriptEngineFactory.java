@@ -0,0 +1,39 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.script.LoxScriptEngineFactory;
+
+import javax.script.ScriptEngine;
+import java.util.List;
+
+/**
+ * Provides {@link LoxCompilerScriptEngine}s under the name
+ * {@code lox-compiler}. Extensions and MIME types are left to the
+ * interpreter's factory.
+ */
+public class LoxCompilerScriptEngineFactory extends LoxScriptEngineFactory {
+
+    @Override
+    public String getEngineName() {
+        return "jlox-compiler";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("lox-compiler");
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new LoxCompilerScriptEngine(this);
+    }
+}
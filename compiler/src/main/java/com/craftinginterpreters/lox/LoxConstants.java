@@ -15,5 +15,7 @@ public interface LoxConstants {
     String LOX_NATIVE = internalClassName(LoxNative.class.getName());
     String LOX_EXCEPTION = internalClassName(lox.LoxException.class.getName());
     String LOX_CAPTURED = internalClassName(lox.LoxCaptured.class.getName());
+    String LOX_CONCAT_STRING = internalClassName(lox.LoxConcatString.class.getName());
+    String LOX_OUTPUT = internalClassName(lox.LoxOutput.class.getName());
     String LOX_MAIN_CLASS = "Main";
 }
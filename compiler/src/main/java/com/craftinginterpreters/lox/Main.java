@@ -2,7 +2,7 @@ package com.craftinginterpreters.lox;
 
 import com.craftinginterpreters.lox.ast.Stmt;
 import com.craftinginterpreters.lox.lexer.Lexer;
-import com.craftinginterpreters.lox.parser.Parser;
+import com.craftinginterpreters.lox.parser.ParallelParser;
 import lox.LoxException;
 import proguard.classfile.ClassPool;
 import proguard.classfile.util.ClassPoolClassLoader;
@@ -11,10 +11,14 @@ import proguard.io.util.IOUtil;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static com.craftinginterpreters.lox.Lox.hadError;
 import static com.craftinginterpreters.lox.Lox.hadRuntimeError;
@@ -67,16 +71,28 @@ public class Main {
         }
     }
 
+    /**
+     * Compiles the UTF-8 file at {@code path}, which is mapped into memory
+     * and scanned as bytes rather than read into a string.
+     */
     public static ClassPool compileFile(String path) throws IOException {
-        return compile(Files.readString(Paths.get(path)));
+        Path file = Paths.get(path);
+
+        // Pipes and other special files can't be mapped.
+        if (!Files.isRegularFile(file))
+            return compile(Files.readString(file));
+
+        ByteBuffer source = Lexer.map(file);
+        return compile(() -> ParallelParser.parse(source, StandardCharsets.UTF_8, Lox.REPORTER));
     }
 
     public static ClassPool compile(String source) {
-        try {
-            Lexer scanner = new Lexer(source);
-            Parser parser = new Parser(scanner.scanTokens());
+        return compile(() -> ParallelParser.parse(source, Lox.REPORTER));
+    }
 
-            Collection<Stmt> statements = parser.parse();
+    private static ClassPool compile(Supplier<Collection<Stmt>> parser) {
+        try {
+            Collection<Stmt> statements = parser.get();
 
             if (hadError)
                 return null;
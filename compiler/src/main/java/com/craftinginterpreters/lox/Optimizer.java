@@ -31,7 +31,7 @@ public class Optimizer {
     public List<Stmt> execute(Collection<Stmt> stmt, int passes) {
         var stmtStream = stmt.stream();
         for (int i = 0; i < passes; i++) {
-            var codeSimplifier = new CodeSimplifier();
+            var codeSimplifier = new CodeSimplifier(i == 0);
             stmtStream = stmtStream
                     .map(it -> it.accept(codeSimplifier))
                     .filter(Objects::nonNull);
@@ -41,13 +41,24 @@ public class Optimizer {
 
     private class CodeSimplifier implements Stmt.Visitor<Stmt>, Expr.Visitor<Expr> {
         private final Map<Token, Expr> varExprReplacements = new HashMap<>();
+        // Later passes see the same code again, so only the first reports.
+        private final boolean reportErrors;
+
+        private CodeSimplifier(boolean reportErrors) {
+            this.reportErrors = reportErrors;
+        }
+
+        private void error(RuntimeError error) {
+            if (reportErrors)
+                runtimeError(error);
+        }
 
         @Override
         public Expr visitAssignExpr(Expr.Assign expr) {
             var value = expr.getValue().accept(this);
             var optionalVarDef = resolver.varDef(expr);
             if (optionalVarDef.isEmpty()) {
-                runtimeError(new RuntimeError(expr.getName(), "Undefined variable '" + expr.getName().lexeme() + "'."));
+                error(new RuntimeError(expr.getName(), "Undefined variable '" + expr.getName().lexeme() + "'."));
             } else {
                 var varDef = optionalVarDef.get();
                 if (!varDef.isRead()) {
@@ -236,7 +247,7 @@ public class Optimizer {
             var varDef = resolver.varDef(expr);
 
             if (varDef.isEmpty()) {
-                runtimeError(new RuntimeError(expr.getName(), "Undefined variable '" + expr.getName().lexeme() + "'."));
+                error(new RuntimeError(expr.getName(), "Undefined variable '" + expr.getName().lexeme() + "'."));
                 return expr;
             } else {
                 if (varExprReplacements.containsKey(varDef.get().token())) {
@@ -273,7 +284,7 @@ public class Optimizer {
 
                 if (!(superClass instanceof Expr.Variable)) {
                     // For compatibility with Lox test suite, throw a runtime error.
-                    runtimeError(new RuntimeError(stmt.getSuperclass().getName(), "Superclass must be a class."));
+                    error(new RuntimeError(stmt.getSuperclass().getName(), "Superclass must be a class."));
                     return null;
                 }
             }
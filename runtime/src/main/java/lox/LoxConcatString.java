@@ -0,0 +1,89 @@
+package lox;
+
+import java.util.Objects;
+
+/**
+ * A string built by {@code +} in compiled code, kept in a growable buffer
+ * shared with the strings it was built from, so that building a string
+ * piece by piece doesn't copy the whole string at every step.
+ * <p>
+ * Each value knows how much of the buffer is its own: appending to the
+ * newest value of a buffer extends it in place, and anything else copies
+ * into a new buffer. The string is flattened when it is compared or printed.
+ */
+public final class LoxConcatString implements CharSequence {
+
+    private static final int MIN_LENGTH = 64;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat;
+
+    private LoxConcatString(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Concatenates {@code a} and {@code b}, or returns null if they aren't
+     * both strings.
+     */
+    public static Object concat(Object a, Object b) {
+        if (!(a instanceof CharSequence left) || !(b instanceof CharSequence right))
+            return null;
+
+        int length = left.length() + right.length();
+
+        if (length < MIN_LENGTH)
+            return left.toString().concat(right.toString());
+
+        // Flatten the right first: it may be the left itself.
+        String tail = right.toString();
+
+        if (left instanceof LoxConcatString string && string.length == string.buffer.length()) {
+            string.buffer.append(tail);
+            return new LoxConcatString(string.buffer, length);
+        }
+
+        StringBuilder buffer = new StringBuilder(length * 2);
+        buffer.append(left.toString()).append(tail);
+        return new LoxConcatString(buffer, length);
+    }
+
+    /**
+     * Lox {@code ==}, which compares concatenated strings by their contents.
+     */
+    public static boolean isEqual(Object a, Object b) {
+        return Objects.equals(flatten(a), flatten(b));
+    }
+
+    public static Object flatten(Object value) {
+        return value instanceof LoxConcatString string ? string.toString() : value;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length)
+            throw new StringIndexOutOfBoundsException(index);
+
+        return buffer.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null)
+            flat = buffer.substring(0, length);
+
+        return flat;
+    }
+}
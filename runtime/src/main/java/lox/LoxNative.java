@@ -10,6 +10,7 @@ public class LoxNative {
     }
 
     public static Object read() throws IOException {
+        LoxOutput.flush();
         int b = System.in.read();
         return b != -1 ? (double)b : null;
     }
@@ -41,11 +42,13 @@ public class LoxNative {
     }
 
     public static Object exit(Object o) {
+        LoxOutput.flush();
         System.exit(((Double)o).intValue());
         return null;
     }
 
     public static Object printerr(Object o) {
+        LoxOutput.flush();
         System.err.println(o);
         return null;
     }
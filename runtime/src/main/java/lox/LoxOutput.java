@@ -0,0 +1,131 @@
+package lox;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Where {@code print} in compiled code writes. Lines are encoded into a large
+ * buffer that is written to {@link System#out} when it fills up, when the
+ * program exits, and before anything is written to {@link System#err} or
+ * read from {@link System#in}.
+ */
+public final class LoxOutput {
+
+    private static final int CAPACITY = 1 << 16;
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final boolean ASCII_COMPATIBLE = CHARSET.equals(StandardCharsets.UTF_8)
+            || CHARSET.equals(StandardCharsets.ISO_8859_1)
+            || CHARSET.equals(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+
+    private static final CharsetEncoder encoder = CHARSET.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private static final ByteBuffer buffer = ByteBuffer.allocate(CAPACITY);
+
+    private static final ThreadLocal<Redirect> redirect = new ThreadLocal<>();
+
+    private record Redirect(Consumer<String> println, Runnable flush) { }
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(LoxOutput::flush, "lox-output"));
+    }
+
+    private LoxOutput() {
+    }
+
+    /**
+     * Sends the current thread's output to another sink instead, so compiled
+     * code running inside an interpreter shares the interpreter's buffer and
+     * lines stay in order. A null {@code println} sends it back to
+     * {@link System#out}.
+     */
+    public static void redirect(Consumer<String> println, Runnable flush) {
+        LoxOutput.flush();
+
+        if (println == null) {
+            redirect.remove();
+        } else {
+            redirect.set(new Redirect(println, flush));
+        }
+    }
+
+    public static void println(String text) {
+        Redirect target = redirect.get();
+
+        if (target != null) {
+            target.println().accept(text);
+            return;
+        }
+
+        int start = ASCII_COMPATIBLE ? putAscii(text) : 0;
+
+        if (start < text.length())
+            encode(text, start);
+
+        if (buffer.remaining() < LINE_SEPARATOR.length)
+            drain();
+
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    public static void flush() {
+        Redirect target = redirect.get();
+
+        if (target != null)
+            target.flush().run();
+
+        if (buffer.position() > 0)
+            drain();
+    }
+
+    private static int putAscii(String text) {
+        byte[] bytes = buffer.array();
+        int position = buffer.position();
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = text.charAt(i);
+
+            if (c >= 0x80)
+                break;
+
+            if (position == CAPACITY) {
+                buffer.position(position);
+                drain();
+                position = 0;
+            }
+
+            bytes[position++] = (byte) c;
+            i++;
+        }
+
+        buffer.position(position);
+        return i;
+    }
+
+    private static void encode(String text, int start) {
+        CharBuffer chars = CharBuffer.wrap(text, start, text.length());
+
+        encoder.reset();
+
+        while (encoder.encode(chars, buffer, true).isOverflow())
+            drain();
+
+        while (encoder.flush(buffer).isOverflow())
+            drain();
+    }
+
+    private static void drain() {
+        System.out.write(buffer.array(), 0, buffer.position());
+        System.out.flush();
+        buffer.clear();
+    }
+}
@@ -0,0 +1,105 @@
+package com.craftinginterpreters.lox.bench;
+
+import com.craftinginterpreters.lox.Lox;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenStream;
+import com.craftinginterpreters.lox.lexer.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scanning a large generated program, a mix of declarations,
+ * keywords, names that repeat, number and string literals and comments.
+ * <p>
+ * {@link #scanTokens} collects every token as the whole-program callers
+ * do, and {@link #scanTokenStream} collects them into a {@link TokenStream}
+ * instead; {@link #nextToken} pulls them one at a time as the parser does, from
+ * a string, and {@link #nextTokenFromBytes} from encoded bytes as a mapped
+ * file is scanned. Run with {@code -PjmhProfilers=gc} to see the
+ * allocation per token alongside the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    private static final String CLASS = """
+        class Point%1$d < Shape {
+          init(x, y) {
+            this.x = x;
+            this.y = y;
+          }
+
+          // Squared distance, to avoid a square root.
+          distance(other) {
+            var dx = this.x - other.x;
+            var dy = this.y - other.y;
+            return dx * dx + dy * dy;
+          }
+        }
+
+        fun scale%1$d(point, factor) {
+          if (factor == nil or factor <= 0) return nil;
+          return Point%1$d(point.x * factor, point.y * 2.5);
+        }
+
+        for (var i = 0; i < %1$d; i = i + 1) {
+          print "point " + "%1$d";
+        }
+        """;
+
+    @Param({"100", "10000"})
+    private int classes;
+
+    private String source;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        StringBuilder program = new StringBuilder();
+
+        for (int i = 0; i < classes; i++)
+            program.append(CLASS.formatted(i));
+
+        source = program.toString();
+        bytes = source.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Token> scanTokens() {
+        return new Lexer(source).scanTokens();
+    }
+
+    @Benchmark
+    public TokenStream scanTokenStream() {
+        return TokenStream.scan(new Lexer(source));
+    }
+
+    @Benchmark
+    public void nextToken(Blackhole blackhole) {
+        scan(new Lexer(source), blackhole);
+    }
+
+    @Benchmark
+    public void nextTokenFromBytes(Blackhole blackhole) {
+        scan(new Lexer(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8, Lox.REPORTER), blackhole);
+    }
+
+    private static void scan(Lexer lexer, Blackhole blackhole) {
+        Token token;
+
+        do {
+            token = lexer.nextToken();
+            blackhole.consume(token);
+        } while (token.type() != TokenType.EOF);
+    }
+}
@@ -0,0 +1,51 @@
+package com.craftinginterpreters.lox.bench;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.interpreter.Resolver;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.parser.Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an arithmetic-heavy loop through the tree-walking interpreter and
+ * reports the time per loop iteration. Run it with {@code -PjmhProfilers=gc}
+ * to see the allocation rate ({@code gc.alloc.rate.norm} is bytes per
+ * iteration), which is dominated by boxing the results of arithmetic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericLoopBenchmark {
+
+    private static final int ITERATIONS = 10000;
+
+    private static final String PROGRAM = """
+        var sum = 0;
+        for (var i = 0; i < 10000; i = i + 1) {
+          sum = sum + (i * 2 + 1) / (i + 1) - i * i / 100000;
+        }
+        """;
+
+    private Interpreter interpreter;
+    private Collection<Stmt> program;
+
+    @Setup
+    public void setup() {
+        program = new Parser(new Lexer(PROGRAM).scanTokens()).parse();
+        new Resolver().resolve(program);
+        interpreter = new Interpreter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public void numericLoop() {
+        interpreter.interpret(program);
+    }
+}
@@ -0,0 +1,131 @@
+package com.craftinginterpreters.lox.bench;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.interpreter.Resolver;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.parser.Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a Lox call that ends in {@code return}.
+ * <p>
+ * {@link #interpretedCall} runs a recursive Lox function through the
+ * tree-walking interpreter and reports the time per call; run it on the
+ * revision before and after a change to the return path to compare them.
+ * {@link #throwingReturn} and {@link #completionReturn} isolate the two ways
+ * of leaving a function from inside nested blocks: unwinding with a
+ * preallocated, stackless exception as {@code util.Return} did, and passing a
+ * completion value back as {@link Interpreter#executeBlock} does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReturnBenchmark {
+
+    // fib(15) makes 2 * fib(16) - 1 calls.
+    private static final int CALLS = 1973;
+
+    private static final String PROGRAM = """
+        fun fib(n) {
+          if (n < 2) return n;
+          return fib(n - 2) + fib(n - 1);
+        }
+        var result = fib(15);
+        """;
+
+    private static final Object NORMAL = new Object();
+
+    private static final class ReturnException extends RuntimeException {
+        private Object value;
+
+        private ReturnException() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Param({"1", "4"})
+    private int blockDepth;
+
+    private Interpreter interpreter;
+    private Collection<Stmt> program;
+    private ReturnException exception;
+
+    @Setup
+    public void setup() {
+        program = new Parser(new Lexer(PROGRAM).scanTokens()).parse();
+        new Resolver().resolve(program);
+        interpreter = new Interpreter();
+        exception = new ReturnException();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void interpretedCall() {
+        interpreter.interpret(program);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public Object throwingReturn() {
+        return throwingCall(15);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public Object completionReturn() {
+        return completionCall(15);
+    }
+
+    private Object throwingCall(double n) {
+        try {
+            throwingBlock(n, blockDepth);
+        } catch (ReturnException returned) {
+            return returned.value;
+        }
+
+        return null;
+    }
+
+    private void throwingBlock(double n, int depth) {
+        if (depth > 1) {
+            throwingBlock(n, depth - 1);
+            return;
+        }
+
+        if (n < 2) {
+            exception.value = n;
+            throw exception;
+        }
+
+        exception.value = (Double) throwingCall(n - 2) + (Double) throwingCall(n - 1);
+        throw exception;
+    }
+
+    private Object completionCall(double n) {
+        Object completion = completionBlock(n, blockDepth);
+        return completion != NORMAL ? completion : null;
+    }
+
+    private Object completionBlock(double n, int depth) {
+        if (depth > 1) {
+            Object completion = completionBlock(n, depth - 1);
+
+            if (completion != NORMAL)
+                return completion;
+
+            return NORMAL;
+        }
+
+        if (n < 2)
+            return n;
+
+        return (Double) completionCall(n - 2) + (Double) completionCall(n - 1);
+    }
+}
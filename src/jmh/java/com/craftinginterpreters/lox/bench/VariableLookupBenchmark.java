@@ -0,0 +1,78 @@
+package com.craftinginterpreters.lox.bench;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving a local variable access through the old
+ * {@code Map<Expr, ...>} side table against reading the depth and slot
+ * the resolver now stores on the node itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableLookupBenchmark {
+
+    private static final int MAX_DEPTH = 4;
+    private static final int FRAME_SIZE = 8;
+
+    private record Local(int depth, int slot) { }
+
+    @Param({"64", "4096"})
+    private int accesses;
+
+    private Expr.Variable[] variables;
+    private Map<Expr, Local> locals;
+    private Environment environment;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        variables = new Expr.Variable[accesses];
+        locals = new HashMap<>();
+
+        for (int i = 0; i < accesses; i++) {
+            Expr.Variable variable = new Expr.Variable(new Token(TokenType.IDENTIFIER, "v" + i, null, 1));
+            int depth = random.nextInt(MAX_DEPTH);
+            int slot = random.nextInt(FRAME_SIZE);
+
+            variable.resolve(depth, slot);
+            locals.put(variable, new Local(depth, slot));
+            variables[i] = variable;
+        }
+
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            environment = new Environment(environment, FRAME_SIZE);
+            for (int slot = 0; slot < FRAME_SIZE; slot++) {
+                environment.define((double) slot);
+            }
+        }
+    }
+
+    @Benchmark
+    public void sideTable(Blackhole blackhole) {
+        for (Expr.Variable variable : variables) {
+            Local local = locals.get(variable);
+            blackhole.consume(environment.getAt(local.depth(), local.slot()));
+        }
+    }
+
+    @Benchmark
+    public void nodeField(Blackhole blackhole) {
+        for (Expr.Variable variable : variables) {
+            blackhole.consume(environment.getAt(variable.getDepth(), variable.getSlot()));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+
+import java.util.Collection;
+
+/**
+ * Executes resolved programs. Implementations keep their globals between
+ * calls, so the REPL can run a program one line at a time.
+ */
+public interface Backend {
+
+    void interpret(Collection<Stmt> statements);
+}
@@ -0,0 +1,39 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenType;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+/**
+ * Where the lexer, parser, resolver and interpreters report the errors they
+ * find. Implementations decide where the messages go and remember that the
+ * program failed; the default methods format the messages.
+ */
+public interface ErrorReporter {
+
+    /**
+     * Reports a formatted scanning, parsing or resolution error.
+     */
+    void reportError(String message);
+
+    /**
+     * Reports a formatted runtime error.
+     */
+    void reportRuntimeError(String message);
+
+    default void error(int line, String message) {
+        reportError("[line " + line + "] Error: " + message);
+    }
+
+    default void error(Token token, String message) {
+        if (token.type() == TokenType.EOF) {
+            reportError("[line " + token.line() + "] Error at end: " + message);
+        } else {
+            reportError("[line " + token.line() + "] Error at '" + token.lexeme() + "': " + message);
+        }
+    }
+
+    default void runtimeError(RuntimeError error) {
+        reportRuntimeError(error.getMessage() + "\n[line " + error.getLine() + "]");
+    }
+}
@@ -1,13 +1,11 @@
 //> Scanning lox-class
 package com.craftinginterpreters.lox;
 
-import com.craftinginterpreters.lox.ast.Stmt;
 import com.craftinginterpreters.lox.interpreter.Interpreter;
-import com.craftinginterpreters.lox.interpreter.Resolver;
-import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.interpreter.node.NodeInterpreter;
 import com.craftinginterpreters.lox.lexer.Token;
-import com.craftinginterpreters.lox.lexer.TokenType;
-import com.craftinginterpreters.lox.parser.Parser;
+import com.craftinginterpreters.lox.profiler.CallStack;
+import com.craftinginterpreters.lox.profiler.Profiler;
 import com.craftinginterpreters.lox.util.RuntimeError;
 
 import java.io.BufferedReader;
@@ -16,90 +14,210 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Collection;
-import java.util.List;
+import java.util.Arrays;
 
 public class Lox {
 
-    private static final Interpreter interpreter = new Interpreter();
+    private static final String PROFILE_PATH = "profile.collapsed";
 
+    // Errors reported by code that runs outside an engine, such as the
+    // standalone compiler.
     static boolean hadError = false;
     static boolean hadRuntimeError = false;
 
+    /**
+     * Reports errors to {@link System#err}, for code that runs outside a
+     * {@link LoxEngine}.
+     */
+    public static final ErrorReporter REPORTER = new ErrorReporter() {
+        @Override
+        public void reportError(String message) {
+            System.err.println(message);
+            hadError = true;
+        }
+
+        @Override
+        public void reportRuntimeError(String message) {
+            System.err.println(message);
+            hadRuntimeError = true;
+        }
+    };
+
+    // Where the static error methods report: REPORTER, unless a caller that
+    // holds the Lox class's lock has pointed them elsewhere.
+    private static ErrorReporter reporter = REPORTER;
+
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(64);
-        } else if (args.length == 1) {
-            runFile(args[0]);
+        boolean profile = false;
+        String snapshot = null;
+        String writeSnapshot = null;
+
+        int i = 0;
+        while (i < args.length && args[i].startsWith("--")) {
+            String option = args[i++];
+
+            if (option.equals("--profile")) {
+                profile = true;
+            } else if (option.equals("--snapshot") && i < args.length) {
+                snapshot = args[i++];
+            } else if (option.equals("--write-snapshot") && i < args.length) {
+                writeSnapshot = args[i++];
+            } else {
+                usage();
+            }
+        }
+
+        args = Arrays.copyOfRange(args, i, args.length);
+
+        if (args.length > 1 || (profile && args.length == 0))
+            usage();
+
+        if (writeSnapshot != null && (args.length == 0 || profile || snapshot != null))
+            usage();
+
+        LoxEngine engine = createEngine(System.getProperty("jlox.engine", "ast"));
+        // Write what a program printed even if it ends with System.exit.
+        Runtime.getRuntime().addShutdownHook(new Thread(engine::flush, "lox-output"));
+
+        if (writeSnapshot != null) {
+            writeSnapshot(engine, args[0], writeSnapshot);
+            return;
+        }
+
+        if (snapshot != null)
+            restore(engine, snapshot);
+
+        if (args.length == 1) {
+            runFile(engine, args[0], profile);
         } else {
-            runPrompt();
+            runPrompt(engine);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: jlox [--profile] [--snapshot file] [script]");
+        System.out.println("       jlox --write-snapshot file prelude");
+        System.exit(64);
+    }
+
+    private static LoxEngine createEngine(String name) {
+        try {
+            return new LoxEngine(name, System.out, System.err);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(64);
+            return null;
         }
     }
 
-    private static void runFile(String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
+    /**
+     * Runs {@code preludePath} and writes a snapshot of the globals it
+     * leaves to {@code snapshotPath}.
+     */
+    private static void writeSnapshot(LoxEngine engine, String preludePath, String snapshotPath) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(preludePath));
+
+        try {
+            engine.snapshot(new String(bytes, Charset.defaultCharset()), Paths.get(snapshotPath));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(70);
+        }
 
-        if (hadError)
+        if (engine.hadError())
             System.exit(65);
 
-        if (hadRuntimeError)
+        if (engine.hadRuntimeError())
             System.exit(70);
     }
 
-    private static void runPrompt() throws IOException {
-        InputStreamReader input = new InputStreamReader(System.in);
-        BufferedReader reader = new BufferedReader(input);
+    private static void restore(LoxEngine engine, String snapshotPath) {
+        try {
+            engine.restore(Paths.get(snapshotPath));
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(64);
+        } catch (IOException e) {
+            System.err.println("Can't read snapshot " + snapshotPath + ": " + e.getMessage());
+            System.exit(66);
+        }
+    }
 
-        for (;;) {
-            System.out.print("> ");
-            String line = reader.readLine();
-            if (line == null) break;
-            run(line);
+    private static void runFile(LoxEngine engine, String path, boolean profile) throws IOException {
+        Profiler profiler = profile ? startProfiler(engine) : null;
+
+        engine.run(Paths.get(path), Charset.defaultCharset());
 
-            hadError = false;
+        if (profiler != null) {
+            profiler.stop();
+            profiler.report(System.err);
+            profiler.writeCollapsed(Paths.get(PROFILE_PATH));
+            System.err.println("Collapsed stacks written to " + PROFILE_PATH + ".");
         }
+
+        if (engine.hadError())
+            System.exit(65);
+
+        if (engine.hadRuntimeError())
+            System.exit(70);
     }
 
-    private static void run(String source) {
-        Lexer scanner = new Lexer(source);
-        List<Token> tokens = scanner.scanTokens();
+    /**
+     * Starts sampling the functions the interpreter runs. Only the
+     * tree-walking interpreter keeps a call stack to sample.
+     */
+    private static Profiler startProfiler(LoxEngine engine) {
+        Backend backend = engine.getBackend();
 
-        Parser parser = new Parser(tokens);
-        Collection<Stmt> statements = parser.parse();
+        if (!(backend instanceof Interpreter interpreter) || backend instanceof NodeInterpreter) {
+            System.err.println("--profile requires the 'ast' engine.");
+            System.exit(64);
+            return null;
+        }
 
-        if (hadError)
-            return;
+        CallStack stack = new CallStack();
+        interpreter.setCallStack(stack);
+
+        Profiler profiler = new Profiler(stack);
+        profiler.start();
+        return profiler;
+    }
 
-        Resolver resolver = new Resolver(interpreter);
-        resolver.resolve(statements);
+    private static void runPrompt(LoxEngine engine) throws IOException {
+        InputStreamReader input = new InputStreamReader(System.in);
+        BufferedReader reader = new BufferedReader(input);
 
-        if (hadError)
-            return;
+        for (;;) {
+            System.out.print("> ");
+            String line = reader.readLine();
+            if (line == null) break;
+            engine.run(line);
 
-        interpreter.interpret(statements);
+            engine.clearErrors();
+        }
     }
 
-    private static void report(int line, String where, String message) {
-        System.err.println("[line " + line + "] Error" + where + ": " + message);
-        hadError = true;
+    /**
+     * Sends the errors of the static error methods to {@code errors}, or
+     * back to {@link #REPORTER} if it is null. They still set the error
+     * flags. Callers hold the Lox class's lock until they set it back.
+     */
+    static void reportTo(ErrorReporter errors) {
+        reporter = errors == null ? REPORTER : errors;
     }
 
     public static void error(int line, String message) {
-        report(line, "", message);
+        reporter.error(line, message);
+        hadError = true;
     }
 
     public static void error(Token token, String message) {
-        if (token.type() == TokenType.EOF) {
-            report(token.line(), " at end", message);
-        } else {
-            report(token.line(), " at '" + token.lexeme() + "'", message);
-        }
+        reporter.error(token, message);
+        hadError = true;
     }
 
     public static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + "\n[line " + error.getToken().line() + "]");
+        reporter.runtimeError(error);
         hadRuntimeError = true;
     }
 }
@@ -0,0 +1,230 @@
+package com.craftinginterpreters.lox;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.interpreter.Resolver;
+import com.craftinginterpreters.lox.interpreter.TierCompiler;
+import com.craftinginterpreters.lox.interpreter.node.NodeInterpreter;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.parser.ParallelParser;
+import com.craftinginterpreters.lox.parser.Parser;
+import com.craftinginterpreters.lox.runtime.BufferedOutput;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.snapshot.Snapshot;
+import com.craftinginterpreters.lox.vm.VirtualMachine;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Runs Lox programs. An engine has its own globals, output and error state,
+ * and keeps its globals between runs, so the REPL can run a program one line
+ * at a time.
+ * <p>
+ * An engine runs one program at a time, but separate engines share no
+ * mutable state and can run on separate threads, virtual ones included.
+ */
+public class LoxEngine implements ErrorReporter {
+
+    private final PrintStream err;
+    private final Output output;
+    private final Backend backend;
+
+    private boolean hadError = false;
+    private boolean hadRuntimeError = false;
+
+    /**
+     * Creates an engine that runs programs on the tree-walking interpreter,
+     * printing to {@link System#out} and reporting errors to
+     * {@link System#err}.
+     */
+    public LoxEngine() {
+        this("ast", System.out, System.err);
+    }
+
+    /**
+     * Creates an engine that runs programs on {@code engine}: 'ast',
+     * 'tiered', 'nodes' or 'vm'.
+     *
+     * @throws IllegalArgumentException if {@code engine} isn't one of those.
+     * @throws IllegalStateException if {@code engine} is 'tiered' and the
+     *         compiler module isn't on the class path.
+     */
+    public LoxEngine(String engine, PrintStream out, PrintStream err) {
+        this.err = err;
+        this.output = new BufferedOutput(out);
+        this.backend = createBackend(engine);
+    }
+
+    private Backend createBackend(String engine) {
+        return switch (engine) {
+            case "ast" -> new Interpreter(this, output, null, 0);
+            case "tiered" -> new Interpreter(this, output, TierCompiler.load(), Integer.getInteger("jlox.tierThreshold", Interpreter.DEFAULT_TIER_THRESHOLD));
+            case "nodes" -> new NodeInterpreter(this, output);
+            case "vm" -> new VirtualMachine(Integer.getInteger("jlox.maxCallDepth", VirtualMachine.DEFAULT_MAX_CALL_DEPTH), this, output);
+            default -> throw new IllegalArgumentException("Unknown engine '" + engine + "', expected 'ast', 'tiered', 'nodes' or 'vm'.");
+        };
+    }
+
+    /**
+     * Runs {@code source}, stopping before it executes anything if it has a
+     * compile error. All of the program's output has been written when this
+     * returns. A large source is parsed in parallel.
+     */
+    public void run(String source) {
+        run(() -> ParallelParser.parse(source, this));
+    }
+
+    /**
+     * Runs the program read from {@code source}, which is scanned as it is
+     * parsed rather than read in whole first.
+     */
+    public void run(Reader source) throws IOException {
+        try {
+            run(() -> new Parser(new Lexer(source, this), this).parse());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Runs the program in the file at {@code path}. If the charset allows,
+     * the file is mapped into memory and scanned as bytes, so that only its
+     * string literals are decoded, and a large file is parsed in parallel.
+     * Anything but a regular file, such as a pipe, is read as a stream.
+     */
+    public void run(Path path, Charset charset) throws IOException {
+        if (!Lexer.canScanBytes(charset) || !Files.isRegularFile(path) || Files.size(path) > Integer.MAX_VALUE) {
+            try (Reader reader = new InputStreamReader(Files.newInputStream(path), charset)) {
+                run(reader);
+            }
+
+            return;
+        }
+
+        ByteBuffer source = Lexer.map(path);
+        run(() -> ParallelParser.parse(source, charset, this));
+    }
+
+    private void run(Supplier<Collection<Stmt>> parser) {
+        try {
+            Collection<Stmt> statements = compile(parser);
+
+            if (statements != null)
+                backend.interpret(statements);
+        } finally {
+            output.flush();
+        }
+    }
+
+    /**
+     * Runs {@code prelude} and, if it succeeds, writes a snapshot of the
+     * globals it leaves to {@code path}, which {@link #restore} can load
+     * instead of running the prelude again.
+     *
+     * @throws IllegalArgumentException if the globals refer to something a
+     *         snapshot can't hold, such as a value from outside the prelude.
+     */
+    public void snapshot(String prelude, Path path) throws IOException {
+        Interpreter interpreter = snapshotInterpreter();
+        Collection<Stmt> statements;
+
+        try {
+            statements = compile(() -> ParallelParser.parse(prelude, this));
+
+            if (statements == null)
+                return;
+
+            interpreter.interpret(statements);
+        } finally {
+            output.flush();
+        }
+
+        if (!hadRuntimeError)
+            Snapshot.write(interpreter, statements, path);
+    }
+
+    /**
+     * Defines the globals of the snapshot at {@code path}, as if the prelude
+     * it was taken after had run.
+     */
+    public void restore(Path path) throws IOException {
+        Snapshot.read(snapshotInterpreter(), path);
+    }
+
+    private Interpreter snapshotInterpreter() {
+        if (!(backend instanceof Interpreter interpreter) || backend instanceof NodeInterpreter)
+            throw new IllegalStateException("Snapshots require the 'ast' or 'tiered' engine.");
+
+        return interpreter;
+    }
+
+    /**
+     * Parses a program with {@code parser} and resolves it, returning null
+     * if it has an error.
+     */
+    private Collection<Stmt> compile(Supplier<Collection<Stmt>> parser) {
+        Collection<Stmt> statements = parser.get();
+
+        if (hadError)
+            return null;
+
+        Resolver resolver = new Resolver(this);
+        resolver.resolve(statements);
+
+        if (hadError)
+            return null;
+
+        return statements;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public boolean hadError() {
+        return hadError;
+    }
+
+    public boolean hadRuntimeError() {
+        return hadRuntimeError;
+    }
+
+    /**
+     * Forgets earlier errors, so the next run starts clean.
+     */
+    public void clearErrors() {
+        hadError = false;
+        hadRuntimeError = false;
+    }
+
+    /**
+     * Writes any output still buffered.
+     */
+    public void flush() {
+        output.flush();
+    }
+
+    @Override
+    public void reportError(String message) {
+        output.flush();
+        err.println(message);
+        hadError = true;
+    }
+
+    @Override
+    public void reportRuntimeError(String message) {
+        output.flush();
+        err.println(message);
+        hadRuntimeError = true;
+    }
+}
@@ -1,7 +1,9 @@
 package com.craftinginterpreters.lox.ast;
 
 import java.util.Collection;
+import com.craftinginterpreters.lox.interpreter.Globals;
 import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.PropertyCache;
 
 public abstract class Expr {
 
@@ -20,9 +22,20 @@ public abstract class Expr {
         R visitVariableExpr(Variable expr);
     }
 
-    public static class Assign extends Expr {
+    /**
+     * A variable access the resolver binds to a local frame slot. Accesses that
+     * are never resolved (depth -1) refer to globals.
+     */
+    public interface Resolvable {
+        void resolve(int depth, int slot);
+    }
+
+    public static class Assign extends Expr implements Resolvable {
         private final Token name;
         private final Expr value;
+        private int depth = -1;
+        private int slot;
+        private Globals.Cell global;
 
         public Assign(Token name, Expr value) {
             this.name = name;
@@ -37,6 +50,31 @@ public abstract class Expr {
             return this.value;
         }
 
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public int getSlot() {
+            return this.slot;
+        }
+
+        /**
+         * The global cell this access was last bound to, if it is a global.
+         */
+        public Globals.Cell getGlobal() {
+            return this.global;
+        }
+
+        public void setGlobal(Globals.Cell global) {
+            this.global = global;
+        }
+
+        @Override
+        public void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitAssignExpr(this);
@@ -104,6 +142,7 @@ public abstract class Expr {
     public static class Get extends Expr {
         private final Token name;
         private final Expr object;
+        private final PropertyCache cache = new PropertyCache();
 
         public Get(Expr object, Token name) {
             this.name = name;
@@ -118,6 +157,10 @@ public abstract class Expr {
             return this.object;
         }
 
+        public PropertyCache getCache() {
+            return this.cache;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitGetExpr(this);
@@ -191,6 +234,7 @@ public abstract class Expr {
         private final Token name;
         private final Expr value;
         private final Expr object;
+        private final PropertyCache cache = new PropertyCache();
 
         public Set(Expr object, Token name, Expr value) {
             this.name = name;
@@ -210,15 +254,21 @@ public abstract class Expr {
             return this.object;
         }
 
+        public PropertyCache getCache() {
+            return this.cache;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitSetExpr(this);
         }
     }
 
-    public static class Super extends Expr {
+    public static class Super extends Expr implements Resolvable {
         private final Token method;
         private final Token keyword;
+        private int depth = -1;
+        private int slot;
 
         public Super(Token keyword, Token method) {
             this.method = method;
@@ -233,14 +283,30 @@ public abstract class Expr {
             return this.keyword;
         }
 
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public int getSlot() {
+            return this.slot;
+        }
+
+        @Override
+        public void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitSuperExpr(this);
         }
     }
 
-    public static class This extends Expr {
+    public static class This extends Expr implements Resolvable {
         private final Token keyword;
+        private int depth = -1;
+        private int slot;
 
         public This(Token keyword) {
             this.keyword = keyword;
@@ -250,6 +316,20 @@ public abstract class Expr {
             return this.keyword;
         }
 
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public int getSlot() {
+            return this.slot;
+        }
+
+        @Override
+        public void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitThisExpr(this);
@@ -279,8 +359,11 @@ public abstract class Expr {
         }
     }
 
-    public static class Variable extends Expr {
+    public static class Variable extends Expr implements Resolvable {
         private final Token name;
+        private int depth = -1;
+        private int slot;
+        private Globals.Cell global;
 
         public Variable(Token name) {
             this.name = name;
@@ -290,6 +373,31 @@ public abstract class Expr {
             return this.name;
         }
 
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public int getSlot() {
+            return this.slot;
+        }
+
+        /**
+         * The global cell this access was last bound to, if it is a global.
+         */
+        public Globals.Cell getGlobal() {
+            return this.global;
+        }
+
+        public void setGlobal(Globals.Cell global) {
+            this.global = global;
+        }
+
+        @Override
+        public void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitVariableExpr(this);
@@ -1,7 +1,10 @@
 package com.craftinginterpreters.lox.ast;
 
 import java.util.Collection;
+import java.util.List;
 import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.interpreter.CompiledFunction;
+import com.craftinginterpreters.lox.interpreter.CompiledLoop;
 
 public abstract class Stmt {
 
@@ -18,8 +21,8 @@ public abstract class Stmt {
     }
 
     public static class Block extends Stmt {
-
         private final Collection<Stmt> statements;
+        private int frameSize;
 
         public Block(Collection<Stmt> statements) {
             this.statements = statements;
@@ -29,6 +32,14 @@ public abstract class Stmt {
             return this.statements;
         }
 
+        public int getFrameSize() {
+            return this.frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitBlockStmt(this);
@@ -85,6 +96,10 @@ public abstract class Stmt {
         private final Collection<Token> params;
         private final Token name;
         private final Collection<Stmt> body;
+        private int frameSize;
+        private int callCount;
+        private CompiledFunction compiled;
+        private boolean method;
 
         public Function(Token name, Collection<Token> params, Collection<Stmt> body) {
             this.params = params;
@@ -104,6 +119,46 @@ public abstract class Stmt {
             return this.body;
         }
 
+        public int getFrameSize() {
+            return this.frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        /**
+         * The number of times the tiered interpreter has run this function, up
+         * to its threshold for compiling it.
+         */
+        public int getCallCount() {
+            return this.callCount;
+        }
+
+        public void setCallCount(int callCount) {
+            this.callCount = callCount;
+        }
+
+        public CompiledFunction getCompiled() {
+            return this.compiled;
+        }
+
+        public void setCompiled(CompiledFunction compiled) {
+            this.compiled = compiled;
+        }
+
+        /**
+         * Whether this is a method, which is only called through its class and
+         * so never compiled on its own.
+         */
+        public boolean isMethod() {
+            return this.method;
+        }
+
+        public void setMethod(boolean method) {
+            this.method = method;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitFunctionStmt(this);
@@ -159,6 +214,7 @@ public abstract class Stmt {
     public static class Return extends Stmt {
         private final Token keyword;
         private final Expr value;
+        private boolean tailCall;
 
         public Return(Token keyword, Expr value) {
             this.keyword = keyword;
@@ -173,6 +229,18 @@ public abstract class Stmt {
             return this.value;
         }
 
+        /**
+         * Whether the returned value is a call, made as the last thing the
+         * function does.
+         */
+        public boolean isTailCall() {
+            return this.tailCall;
+        }
+
+        public void setTailCall(boolean tailCall) {
+            this.tailCall = tailCall;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitReturnStmt(this);
@@ -205,6 +273,9 @@ public abstract class Stmt {
     public static class While extends Stmt {
         private final Expr condition;
         private final Stmt body;
+        private int backEdgeCount;
+        private CompiledLoop compiled;
+        private List<Expr.Variable> variables;
 
         public While(Expr condition, Stmt body) {
             this.condition = condition;
@@ -219,6 +290,38 @@ public abstract class Stmt {
             return this.body;
         }
 
+        /**
+         * The number of iterations the tiered interpreter has run, up to its
+         * threshold for compiling the loop.
+         */
+        public int getBackEdgeCount() {
+            return this.backEdgeCount;
+        }
+
+        public void setBackEdgeCount(int backEdgeCount) {
+            this.backEdgeCount = backEdgeCount;
+        }
+
+        public CompiledLoop getCompiled() {
+            return this.compiled;
+        }
+
+        public void setCompiled(CompiledLoop compiled) {
+            this.compiled = compiled;
+        }
+
+        /**
+         * The variables from outside the loop that the compiled loop takes and
+         * gives back, resolved from the loop's own scope.
+         */
+        public List<Expr.Variable> getVariables() {
+            return this.variables;
+        }
+
+        public void setVariables(List<Expr.Variable> variables) {
+            this.variables = variables;
+        }
+
         @Override
         public <R> R accept(Visitor<R> visitor) {
             return visitor.visitWhileStmt(this);
@@ -0,0 +1,14 @@
+package com.craftinginterpreters.lox.interpreter;
+
+/**
+ * A Lox function compiled to JVM bytecode by a {@link TierCompiler}.
+ */
+public interface CompiledFunction {
+
+    /**
+     * Runs the compiled code. Runtime errors are thrown as
+     * {@link com.craftinginterpreters.lox.util.RuntimeError}s, like the
+     * interpreter's.
+     */
+    Object call(Object[] arguments);
+}
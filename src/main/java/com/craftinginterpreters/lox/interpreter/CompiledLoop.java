@@ -0,0 +1,16 @@
+package com.craftinginterpreters.lox.interpreter;
+
+/**
+ * A {@code while} loop compiled to JVM bytecode by a {@link TierCompiler},
+ * entered from the interpreter in the middle of running it.
+ */
+public interface CompiledLoop {
+
+    /**
+     * Runs the loop to completion. {@code values} holds the variables the loop
+     * uses from outside it on entry, and their final values on return, also
+     * when the loop stops with a
+     * {@link com.craftinginterpreters.lox.util.RuntimeError}.
+     */
+    void run(Object[] values);
+}
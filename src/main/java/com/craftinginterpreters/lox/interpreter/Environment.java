@@ -1,63 +1,35 @@
 package com.craftinginterpreters.lox.interpreter;
 
-import com.craftinginterpreters.lox.ast.Stmt;
-import com.craftinginterpreters.lox.util.RuntimeError;
-import com.craftinginterpreters.lox.lexer.Token;
-import com.craftinginterpreters.lox.util.Value;
-
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.Arrays;
+
+/**
+ * A fixed-size frame of local variable slots.
+ * <p>
+ * The {@link Resolver} assigns every local a slot in declaration order and
+ * records the number of slots a scope needs, so variable access is a plain
+ * array load once the (depth, slot) pair is known.
+ */
 public class Environment {
 
     private final Environment enclosing;
-    private final Map<String, Value<?>> values = new HashMap<>();
-
-    public Environment() {
-        enclosing = null;
-    }
+    private final Object[] values;
+    private int defined = 0;
 
-    public Environment(Environment enclosing) {
+    public Environment(Environment enclosing, int size) {
         this.enclosing = enclosing;
+        this.values = new Object[size];
     }
 
-    public Object get(Token name) {
-        if (values.containsKey(name.lexeme()))
-            return values.get(name.lexeme()).get();
-
-        if (enclosing != null)
-            return enclosing.get(name);
-
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
+    /**
+     * Defines the next local of this frame. Locals are defined in the
+     * same order the resolver allocated their slots.
+     */
+    public void define(Object value) {
+        values[defined++] = value;
     }
 
-    public void assign(Token name, Object value) {
-        if (values.containsKey(name.lexeme())) {
-            Value<?> val = values.get(name.lexeme());
-
-            try {
-                val.set(value);
-            } catch (IllegalArgumentException e) {
-                throw new RuntimeError(name, "Expected type '" + val.getType().getName() + "' but got '" + value.getClass().getName() + "'!");
-            }
-
-            return;
-        }
-
-        if (enclosing != null) {
-            enclosing.assign(name, value);
-            return;
-        }
-
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
-    }
-
-    public void define(String name, Object value) {
-        values.put(name, new Value<>(value));
-    }
-
-    public void define(Stmt.Var var, Object value) {
-        this.define(var.getName().lexeme(), value);
+    public Object get(int slot) {
+        return values[slot];
     }
 
     public Environment ancestor(int distance) {
@@ -69,27 +41,35 @@ public class Environment {
         return environment;
     }
 
-    public Object getAt(int distance, String name) {
-        return ancestor(distance).values.get(name).get();
+    public Object getAt(int distance, int slot) {
+        return ancestor(distance).values[slot];
     }
 
-    public void assignAt(int distance, Token name, Object value) {
-        Environment ancestor = ancestor(distance);
-        if (ancestor.values.containsKey(name.lexeme())) {
-            ancestor.values.get(name.lexeme()).set(value);
-            return;
-        }
-
-        ancestor.values.put(name.lexeme(), new Value<>(value));
+    public void assignAt(int distance, int slot, Object value) {
+        ancestor(distance).values[slot] = value;
     }
 
     public Environment getEnclosing() {
         return enclosing;
     }
 
+    /**
+     * The number of slots, defined or not.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * The number of locals defined so far, which occupy the first slots.
+     */
+    public int definedCount() {
+        return defined;
+    }
+
     @Override
     public String toString() {
-        String result = values.toString();
+        String result = Arrays.toString(values);
 
         if (enclosing != null) {
             result += " -> " + enclosing;
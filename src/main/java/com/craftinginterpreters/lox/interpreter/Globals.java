@@ -0,0 +1,159 @@
+package com.craftinginterpreters.lox.interpreter;
+
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.util.RuntimeError;
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * The global scope. Unlike local frames, globals can be redefined and
+ * referenced before they are declared, so they can't be resolved to slots
+ * ahead of time. Instead each name gets a {@link Cell} at a stable index the
+ * first time it is defined, and code that refers to the name keeps the cell,
+ * so later accesses don't hash the name.
+ */
+public class Globals {
+
+    /**
+     * The storage of one global variable. A cell only exists once its name
+     * is defined, and then stays defined.
+     */
+    public static final class Cell {
+
+        private final Globals owner;
+        private final Symbol name;
+        private final int index;
+        private boolean defined;
+        private Object value;
+
+        private Cell(Globals owner, Symbol name, int index) {
+            this.owner = owner;
+            this.name = name;
+            this.index = index;
+        }
+
+        public Symbol getName() {
+            return name;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isDefined() {
+            return defined;
+        }
+
+        public Object get(Token name) {
+            if (defined)
+                return value;
+
+            throw undefined(name);
+        }
+
+        /**
+         * The value, or null if the name isn't defined yet.
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        public void assign(Token name, Object value) {
+            if (!defined)
+                throw undefined(name);
+
+            this.value = value;
+        }
+
+        private void define(Object value) {
+            this.defined = true;
+            this.value = value;
+        }
+
+        /**
+         * Whether this cell belongs to {@code globals}, so code cached
+         * against one interpreter's globals can't reach another's.
+         */
+        public boolean belongsTo(Globals globals) {
+            return owner == globals;
+        }
+    }
+
+    private final SymbolMap<Cell> indices = new SymbolMap<>();
+    private Cell[] cells = new Cell[64];
+    private int count = 0;
+
+    /**
+     * Stands in for every name that isn't defined, so that looking one up,
+     * such as a misspelled name, doesn't add it to the table.
+     */
+    private final Cell undefined = new Cell(this, null, -1);
+
+    /**
+     * Returns the cell for {@code name}, or an undefined cell shared by all
+     * names that aren't defined yet. Code that keeps a cell has to look it
+     * up again while it isn't {@link Cell#isDefined() defined}.
+     */
+    public Cell cell(Symbol name) {
+        Cell cell = indices.get(name);
+        return cell == null ? undefined : cell;
+    }
+
+    public Cell cell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * The number of cells, which is the number of names defined.
+     */
+    public int size() {
+        return count;
+    }
+
+    public Object get(Token name) {
+        return cell(name.symbol()).get(name);
+    }
+
+    public void assign(Token name, Object value) {
+        cell(name.symbol()).assign(name, value);
+    }
+
+    public boolean isDefined(Token name) {
+        Cell cell = indices.get(name.symbol());
+        return cell != null && cell.defined;
+    }
+
+    public void define(Symbol name, Object value) {
+        Cell cell = indices.get(name);
+
+        if (cell == null) {
+            if (count == cells.length)
+                cells = Arrays.copyOf(cells, count * 2);
+
+            cell = new Cell(this, name, count);
+            cells[count++] = cell;
+            indices.put(name, cell);
+        }
+
+        cell.define(value);
+    }
+
+    private static RuntimeError undefined(Token name) {
+        return new RuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+
+        for (int i = 0; i < count; i++) {
+            if (cells[i].defined)
+                joiner.add(cells[i].name + "=" + cells[i].value);
+        }
+
+        return joiner.toString();
+    }
+}
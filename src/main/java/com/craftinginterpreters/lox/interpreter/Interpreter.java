@@ -1,27 +1,86 @@
 package com.craftinginterpreters.lox.interpreter;
 
+import com.craftinginterpreters.lox.Backend;
+import com.craftinginterpreters.lox.ErrorReporter;
 import com.craftinginterpreters.lox.Lox;
-import com.craftinginterpreters.lox.util.Return;
 import com.craftinginterpreters.lox.util.RuntimeError;
+import com.craftinginterpreters.lox.util.SymbolMap;
 import com.craftinginterpreters.lox.ast.Expr;
 import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Symbol;
 import com.craftinginterpreters.lox.lexer.Token;
 import com.craftinginterpreters.lox.lexer.TokenType;
+import com.craftinginterpreters.lox.profiler.CallStack;
+import com.craftinginterpreters.lox.runtime.BufferedOutput;
+import com.craftinginterpreters.lox.runtime.ConcatString;
 import com.craftinginterpreters.lox.runtime.LoxCallable;
 import com.craftinginterpreters.lox.runtime.LoxClass;
 import com.craftinginterpreters.lox.runtime.LoxFunction;
 import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.runtime.Output;
 
 import java.util.*;
 
-public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
+public class Interpreter implements Backend, Expr.Visitor<Object>, Stmt.Visitor<Object> {
 
-    private final Environment globals = new Environment();
-    private final Map<Expr, Integer> locals = new HashMap<>();
-    private Environment environment = globals;
+    /**
+     * The completion of a statement that finished normally. Statements
+     * return any other value only when a {@code return} executed, and that
+     * value is what the function returns.
+     */
+    public static final Object NORMAL = new Object();
+
+    private static final int SMALL_INTEGER_MIN = -128;
+    private static final int SMALL_INTEGER_MAX = 1023;
+    private static final Double[] SMALL_INTEGERS = new Double[SMALL_INTEGER_MAX - SMALL_INTEGER_MIN + 1];
+
+    static {
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = (double) (i + SMALL_INTEGER_MIN);
+        }
+    }
+
+    public static final int DEFAULT_TIER_THRESHOLD = 1000;
+
+    private final Globals globals = new Globals();
+    private final ErrorReporter reporter;
+    private final Output output;
+    private final TierCompiler tierCompiler;
+    private final int tierThreshold;
+    private final TailCall tailCall = new TailCall();
+    private Environment environment = null;
+    private CallStack callStack = null;
+
+    // Set by evaluateNumber: whether the operand was a number and, if it
+    // wasn't, its value.
+    private boolean numeric;
+    private Object nonNumeric;
 
     public Interpreter() {
-        globals.define("clock", new LoxCallable() {
+        this(null, 0);
+    }
+
+    /**
+     * Creates an interpreter that compiles a function with
+     * {@code tierCompiler} once it has run {@code tierThreshold} times, and
+     * runs the compiled code from then on.
+     */
+    public Interpreter(TierCompiler tierCompiler, int tierThreshold) {
+        this(Lox.REPORTER, new BufferedOutput(System.out), tierCompiler, tierThreshold);
+    }
+
+    /**
+     * Creates an interpreter that reports errors to {@code reporter} and
+     * prints to {@code output}, tiering up as above if
+     * {@code tierCompiler} isn't null.
+     */
+    public Interpreter(ErrorReporter reporter, Output output, TierCompiler tierCompiler, int tierThreshold) {
+        this.reporter = reporter;
+        this.output = output;
+        this.tierCompiler = tierCompiler;
+        this.tierThreshold = tierThreshold;
+
+        globals.define(Symbol.intern("clock"), new LoxCallable() {
             @Override
             public int arity() { return 0; }
 
@@ -35,50 +94,175 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         });
     }
 
+    public Globals getGlobals() {
+        return globals;
+    }
+
+    protected ErrorReporter getReporter() {
+        return reporter;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    @Override
     public void interpret(Collection<Stmt> statements) {
+        if (tierCompiler != null)
+            tierCompiler.attach(output);
+
         try {
             for (Stmt statement : statements) {
                 execute(statement);
             }
         } catch (RuntimeError error) {
-            Lox.runtimeError(error);
+            if (callStack != null)
+                callStack.clear();
+
+            reporter.runtimeError(error);
         }
     }
 
-    private Object evaluate(Expr expr) {
-        return expr.accept(this);
+    /**
+     * The stack functions push themselves onto while {@code --profile} is
+     * sampling, or null.
+     */
+    public CallStack getCallStack() {
+        return callStack;
+    }
+
+    public void setCallStack(CallStack callStack) {
+        this.callStack = callStack;
     }
 
-    private void execute(Stmt stmt) {
-        stmt.accept(this);
+    private Object evaluate(Expr expr) {
+        return expr.accept(this);
     }
 
-    protected void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
+    private Object execute(Stmt stmt) {
+        return stmt.accept(this);
     }
 
-    public void executeBlock(Collection<Stmt> statements, Environment environment) {
+    /**
+     * Executes {@code statements} in {@code environment}, stopping at the
+     * first one that returns.
+     *
+     * @return {@link #NORMAL} or the returned value
+     */
+    public Object executeBlock(Collection<Stmt> statements, Environment environment) {
         Environment previous = this.environment;
 
         try {
             this.environment = environment;
 
             for (Stmt statement : statements) {
-                execute(statement);
+                Object completion = execute(statement);
+
+                if (completion != NORMAL)
+                    return completion;
             }
+
+            return NORMAL;
         } finally {
             this.environment = previous;
         }
     }
 
+    /**
+     * Runs the body of {@code function} in {@code frame}, or its compiled
+     * code once it is hot.
+     */
+    public Object executeFunction(LoxFunction function, Environment frame) {
+        Stmt.Function declaration = function.getDeclaration();
+
+        if (tierCompiler != null) {
+            CompiledFunction compiled = compiled(function);
+
+            if (compiled != null) {
+                Object[] arguments = compiledArguments(declaration, frame);
+
+                if (arguments != null)
+                    return compiled.call(arguments);
+            }
+        }
+
+        return executeBlock(declaration.getBody(), frame);
+    }
+
+    private CompiledFunction compiled(LoxFunction function) {
+        Stmt.Function declaration = function.getDeclaration();
+        CompiledFunction compiled = declaration.getCompiled();
+
+        if (compiled == null) {
+            int calls = declaration.getCallCount();
+
+            if (calls == tierThreshold)
+                return null;
+
+            declaration.setCallCount(++calls);
+
+            if (calls < tierThreshold || declaration.isMethod() || function.getClosure() != null
+                    || !isBoundGlobal(declaration) || !SelfContained.check(declaration))
+                return null;
+
+            compiled = tierCompiler.compile(declaration);
+            declaration.setCompiled(compiled);
+
+            if (compiled == null)
+                return null;
+        }
+
+        // The compiled code calls itself directly, which is only right while
+        // the global still holds this function.
+        if (!isBoundGlobal(declaration))
+            return null;
+
+        return compiled;
+    }
+
+    /**
+     * Whether the global named after {@code declaration} holds the function
+     * it declares, without failing if the name isn't a defined global.
+     */
+    private boolean isBoundGlobal(Stmt.Function declaration) {
+        return globals.cell(declaration.getName().symbol()).getValue() instanceof LoxFunction global
+                && global.getDeclaration() == declaration;
+    }
+
+    /**
+     * Whether {@code value} means the same to compiled code, which has its
+     * own functions, classes and instances. Strings are passed flattened.
+     */
+    private static boolean isPlainValue(Object value) {
+        return value == null || value instanceof Double || ConcatString.isString(value) || value instanceof Boolean;
+    }
+
+    /**
+     * The arguments in {@code frame}, or null if any of them is an object
+     * that compiled code can't use.
+     */
+    private static Object[] compiledArguments(Stmt.Function declaration, Environment frame) {
+        Object[] arguments = new Object[declaration.getParams().size()];
+
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = frame.get(i);
+
+            if (!isPlainValue(argument))
+                return null;
+
+            arguments[i] = ConcatString.flatten(argument);
+        }
+
+        return arguments;
+    }
+
     @Override
-    public Void visitBlockStmt(Stmt.Block stmt) {
-        executeBlock(stmt.getStatements(), new Environment(environment));
-        return null;
+    public Object visitBlockStmt(Stmt.Block stmt) {
+        return executeBlock(stmt.getStatements(), new Environment(environment, stmt.getFrameSize()));
     }
 
     @Override
-    public Void visitClassStmt(Stmt.Class stmt) {
+    public Object visitClassStmt(Stmt.Class stmt) {
         Object superclass = null;
         if (stmt.getSuperclass() != null) {
             superclass = evaluate(stmt.getSuperclass());
@@ -88,17 +272,15 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         }
 
-        environment.define(stmt.getName().lexeme(), null);
-
         if (stmt.getSuperclass() != null) {
-            environment = new Environment(environment);
-            environment.define("super", superclass);
+            environment = new Environment(environment, 1);
+            environment.define(superclass);
         }
 
-        Map<String, LoxFunction> methods = new HashMap<>();
+        SymbolMap<LoxFunction> methods = new SymbolMap<>();
         for (Stmt.Function method : stmt.getMethods()) {
             LoxFunction function = new LoxFunction(method, environment, method.getName().lexeme().equals("init"));
-            methods.put(method.getName().lexeme(), function);
+            methods.put(method.getName().symbol(), function);
         }
 
         LoxClass clazz = new LoxClass(stmt.getName().lexeme(), (LoxClass) superclass, methods);
@@ -107,80 +289,159 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             environment = environment.getEnclosing();
         }
 
-        environment.assign(stmt.getName(), clazz);
-        return null;
+        // Methods only look the class up when called, so it can be defined last.
+        define(stmt.getName(), clazz);
+        return NORMAL;
     }
 
     @Override
-    public Void visitExpressionStmt(Stmt.Expression stmt) {
+    public Object visitExpressionStmt(Stmt.Expression stmt) {
         evaluate(stmt.getExpression());
-        return null;
+        return NORMAL;
     }
 
     @Override
-    public Void visitFunctionStmt(Stmt.Function stmt) {
+    public Object visitFunctionStmt(Stmt.Function stmt) {
         LoxFunction function = new LoxFunction(stmt, environment, false);
 
-        //FIXME: or here?
-        environment.define(stmt.getName().lexeme(), function);
-        return null;
+        define(stmt.getName(), function);
+        return NORMAL;
     }
 
     @Override
-    public Void visitIfStmt(Stmt.If stmt) {
-        if (isTruthy(evaluate(stmt.getCondition()))) {
-            execute(stmt.getThenBranch());
-        } else if (stmt.getElseBranch() != null) {
-            execute(stmt.getElseBranch());
-        }
+    public Object visitIfStmt(Stmt.If stmt) {
+        if (isTruthy(evaluate(stmt.getCondition())))
+            return execute(stmt.getThenBranch());
 
-        return null;
+        if (stmt.getElseBranch() != null)
+            return execute(stmt.getElseBranch());
+
+        return NORMAL;
     }
 
     @Override
-    public Void visitPrintStmt(Stmt.Print stmt) {
+    public Object visitPrintStmt(Stmt.Print stmt) {
         Object value = evaluate(stmt.getExpression());
-        System.out.println(stringify(value));
-        return null;
+        output.println(stringify(value));
+        return NORMAL;
     }
 
     @Override
-    public Void visitReturnStmt(Stmt.Return stmt) {
+    public Object visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.isTailCall())
+            return call((Expr.Call) stmt.getValue(), true);
+
         Object value = null;
         if (stmt.getValue() != null)
             value = evaluate(stmt.getValue());
 
-        throw new Return(value);
+        return value;
     }
 
     @Override
-    public Void visitVarStmt(Stmt.Var stmt) {
+    public Object visitVarStmt(Stmt.Var stmt) {
         Object value = null;
         if (stmt.getInitializer() != null) {
             value = evaluate(stmt.getInitializer());
         }
 
-        environment.define(stmt, value);
-        return null;
+        define(stmt.getName(), value);
+        return NORMAL;
     }
 
     @Override
-    public Void visitWhileStmt(Stmt.While stmt) {
-        while (isTruthy(evaluate(stmt.getCondition()))) {
-            execute(stmt.getBody());
+    public Object visitWhileStmt(Stmt.While stmt) {
+        while (true) {
+            if (tierCompiler != null && runCompiledLoop(stmt))
+                return NORMAL;
+
+            if (!isTruthy(evaluate(stmt.getCondition())))
+                return NORMAL;
+
+            Object completion = execute(stmt.getBody());
+
+            if (completion != NORMAL)
+                return completion;
         }
-        return null;
+    }
+
+    /**
+     * Counts an iteration of {@code loop} and, once the loop is hot, runs the
+     * rest of it as compiled code, moving the variables it uses from outside
+     * into the compiled loop and back.
+     *
+     * @return whether the compiled loop ran
+     */
+    private boolean runCompiledLoop(Stmt.While loop) {
+        CompiledLoop compiled = loop.getCompiled();
+
+        if (compiled == null) {
+            int count = loop.getBackEdgeCount();
+
+            if (count == tierThreshold)
+                return false;
+
+            loop.setBackEdgeCount(++count);
+
+            if (count < tierThreshold)
+                return false;
+
+            List<Expr.Variable> variables = LoopVariables.find(loop);
+            if (variables == null)
+                return false;
+
+            compiled = tierCompiler.compile(loop, variables.stream().map(Expr.Variable::getName).toList());
+            if (compiled == null)
+                return false;
+
+            loop.setVariables(variables);
+            loop.setCompiled(compiled);
+        }
+
+        List<Expr.Variable> variables = loop.getVariables();
+        Object[] values = new Object[variables.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            Expr.Variable variable = variables.get(i);
+
+            // Leave reporting an undefined global to the interpreter, in
+            // case the loop never reaches it.
+            if (variable.getDepth() < 0 && !global(variable).isDefined())
+                return false;
+
+            Object value = visitVariableExpr(variable);
+
+            if (!isPlainValue(value))
+                return false;
+
+            values[i] = ConcatString.flatten(value);
+        }
+
+        try {
+            compiled.run(values);
+        } finally {
+            for (int i = 0; i < values.length; i++) {
+                Expr.Variable variable = variables.get(i);
+
+                if (variable.getDepth() >= 0) {
+                    environment.assignAt(variable.getDepth(), variable.getSlot(), values[i]);
+                } else {
+                    global(variable).assign(variable.getName(), values[i]);
+                }
+            }
+        }
+
+        return true;
     }
 
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         Object value = evaluate(expr.getValue());
-        Integer distance = locals.get(expr);
 
-        if (distance != null) {
-            environment.assignAt(distance, expr.getName(), value);
+        if (expr.getDepth() >= 0) {
+            environment.assignAt(expr.getDepth(), expr.getSlot(), value);
         } else {
-            globals.assign(expr.getName(), value);
+            global(expr).assign(expr.getName(), value);
         }
 
         return value;
@@ -188,63 +449,197 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
-        Object left = evaluate(expr.getLeft());
-        Object right = evaluate(expr.getRight());
+        Token operator = expr.getOperator();
 
-        switch (expr.getOperator().type()) {
+        switch (operator.type()) {
             case BANG_EQUAL -> {
-                return !isEqual(left, right);
+                return !isEqual(evaluate(expr.getLeft()), evaluate(expr.getRight()));
             }
             case EQUAL_EQUAL -> {
-                return isEqual(left, right);
-            }
-            case GREATER -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left > (double) right;
-            }
-            case GREATER_EQUAL -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left >= (double) right;
+                return isEqual(evaluate(expr.getLeft()), evaluate(expr.getRight()));
             }
-            case LESS -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left < (double) right;
+            case PLUS, MINUS, STAR, SLASH -> {
+                double result = arithmetic(expr);
+                return numeric ? box(result) : nonNumeric;
             }
-            case LESS_EQUAL -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left <= (double) right;
-            }
-            case MINUS -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left - (double) right;
-            }
-            case PLUS -> {
-                if (left instanceof Double dbl1 && right instanceof Double dbl2)
-                    return dbl1 + dbl2;
+        }
 
-                if (left instanceof String str1 && right instanceof String str2)
-                    return str1 + str2;
+        double left = evaluateNumber(expr.getLeft());
+        boolean leftNumeric = numeric;
+        double right = evaluateNumber(expr.getRight());
 
-                throw new RuntimeError(expr.getOperator(),
-                        "Operands must be two numbers or two strings.");
-            }
-            case SLASH -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left / (double) right;
-            }
-            case STAR -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left * (double) right;
+        if (!leftNumeric || !numeric)
+            throw new RuntimeError(operator, "Operands must be numbers.");
+
+        return switch (operator.type()) {
+            case GREATER -> left > right;
+            case GREATER_EQUAL -> left >= right;
+            case LESS -> left < right;
+            case LESS_EQUAL -> left <= right;
+            default -> throw new IllegalArgumentException("Unexpected binary operator: " + operator);
+        };
+    }
+
+    /**
+     * Evaluates the operand of a numeric operator. Arithmetic below it is
+     * done on unboxed doubles, so only the value the operator finally
+     * produces is boxed. Sets {@link #numeric}, and if the operand turned
+     * out not to be a number, {@link #nonNumeric}.
+     */
+    private double evaluateNumber(Expr expr) {
+        Object value;
+
+        if (expr instanceof Expr.Variable variable) {
+            value = visitVariableExpr(variable);
+        } else if (expr instanceof Expr.Literal literal) {
+            value = literal.getValue();
+        } else if (expr instanceof Expr.Binary binary) {
+            switch (binary.getOperator().type()) {
+                case PLUS, MINUS, STAR, SLASH -> {
+                    return arithmetic(binary);
+                }
             }
+
+            value = visitBinaryExpr(binary);
+        } else if (expr instanceof Expr.Grouping grouping) {
+            return evaluateNumber(grouping.getExpression());
+        } else if (expr instanceof Expr.Unary unary && unary.getOperator().type() == TokenType.MINUS) {
+            double operand = evaluateNumber(unary.getRight());
+
+            if (!numeric)
+                throw new RuntimeError(unary.getOperator(), "Operand must be a number.");
+
+            return -operand;
+        } else {
+            value = evaluate(expr);
+        }
+
+        if (value instanceof Double number) {
+            numeric = true;
+            return number;
+        }
+
+        numeric = false;
+        nonNumeric = value;
+        return Double.NaN;
+    }
+
+    /**
+     * Applies {@code +}, {@code -}, {@code *} or {@code /}, leaving a numeric
+     * result unboxed. {@code +} of two strings is the one non-numeric
+     * result, left in {@link #nonNumeric}.
+     */
+    private double arithmetic(Expr.Binary expr) {
+        Token operator = expr.getOperator();
+
+        double left = evaluateNumber(expr.getLeft());
+        boolean leftNumeric = numeric;
+        Object leftValue = nonNumeric;
+        double right = evaluateNumber(expr.getRight());
+
+        if (leftNumeric && numeric) {
+            return switch (operator.type()) {
+                case PLUS -> left + right;
+                case MINUS -> left - right;
+                case STAR -> left * right;
+                case SLASH -> left / right;
+                default -> throw new IllegalArgumentException("Unexpected arithmetic operator: " + operator);
+            };
+        }
+
+        if (operator.type() != TokenType.PLUS)
+            throw new RuntimeError(operator, "Operands must be numbers.");
+
+        if (!leftNumeric && !numeric && leftValue instanceof CharSequence a && nonNumeric instanceof CharSequence b) {
+            nonNumeric = ConcatString.concat(a, b);
+            return Double.NaN;
         }
 
-        // Unreachable.
-        return null;
+        throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+    }
+
+    /**
+     * Boxes the result of arithmetic. Small integers, such as loop counters
+     * and the arguments of recursive calls, come from a cache.
+     */
+    private static Object box(double value) {
+        int integer = (int) value;
+
+        if (integer == value && integer >= SMALL_INTEGER_MIN && integer <= SMALL_INTEGER_MAX
+                && (integer != 0 || Double.doubleToRawLongBits(value) == 0))
+            return SMALL_INTEGERS[integer - SMALL_INTEGER_MIN];
+
+        return value;
     }
 
     @Override
     public Object visitCallExpr(Expr.Call expr) {
-        Object callee = evaluate(expr.getCallee());
+        return call(expr, false);
+    }
+
+    /**
+     * Evaluates a call. A call in {@code tail} position to a Lox function or
+     * method isn't made here but returned as a {@link TailCall}, so the
+     * returning function's frame is gone before the callee runs.
+     */
+    private Object call(Expr.Call expr, boolean tail) {
+        if (expr.getCallee() instanceof Expr.Get get)
+            return invoke(get, expr, tail);
+
+        return call(evaluate(expr.getCallee()), expr, tail);
+    }
+
+    /**
+     * Calls a method straight off its instance, passing the instance as the
+     * receiver instead of binding the method first.
+     */
+    private Object invoke(Expr.Get get, Expr.Call expr, boolean tail) {
+        Object object = evaluate(get.getObject());
+
+        if (!(object instanceof LoxInstance instance))
+            throw new RuntimeError(get.getName(), "Only instances have properties.");
+
+        LoxFunction method = get.getCache().getMethod(instance, get.getName());
+
+        // A field holding something callable.
+        if (method == null)
+            return call(get.getCache().get(instance, get.getName()), expr, tail);
+
+        checkArity(method.arity(), expr);
+
+        Environment frame = method.newFrame();
+        frame.define(instance);
+        defineArguments(frame, expr);
+
+        return execute(method, frame, tail);
+    }
+
+    private Object call(Object callee, Expr.Call expr, boolean tail) {
+        if (callee instanceof LoxFunction function) {
+            checkArity(function.arity(), expr);
+
+            Environment frame = function.newFrame();
+            defineArguments(frame, expr);
+
+            return execute(function, frame, tail);
+        }
+
+        if (callee instanceof LoxClass clazz) {
+            LoxInstance instance = new LoxInstance(clazz);
+            LoxFunction initializer = clazz.findInitializer();
+
+            checkArity(initializer != null ? initializer.arity() : 0, expr);
+
+            if (initializer != null) {
+                Environment frame = initializer.newFrame();
+                frame.define(instance);
+                defineArguments(frame, expr);
+
+                initializer.execute(this, frame);
+            }
+
+            return instance;
+        }
 
         List<Object> arguments = new ArrayList<>();
         for (Expr argument : expr.getArguments()) {
@@ -260,11 +655,39 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return function.call(this, arguments);
     }
 
+    private Object execute(LoxFunction function, Environment frame, boolean tail) {
+        if (tail)
+            return tailCall.set(function, frame);
+
+        return function.execute(this, frame);
+    }
+
+    /**
+     * Fails if the call doesn't pass {@code arity} arguments, after
+     * evaluating them like any other call would.
+     */
+    private void checkArity(int arity, Expr.Call expr) {
+        if (expr.getArguments().size() == arity)
+            return;
+
+        for (Expr argument : expr.getArguments()) {
+            evaluate(argument);
+        }
+
+        throw new RuntimeError(expr.getParen(), "Expected " + arity + " arguments but got " + expr.getArguments().size() + ".");
+    }
+
+    private void defineArguments(Environment frame, Expr.Call expr) {
+        for (Expr argument : expr.getArguments()) {
+            frame.define(evaluate(argument));
+        }
+    }
+
     @Override
     public Object visitGetExpr(Expr.Get expr) {
         Object object = evaluate(expr.getObject());
         if (object instanceof LoxInstance instance) {
-            return instance.get(expr.getName());
+            return expr.getCache().get(instance, expr.getName());
         }
 
         throw new RuntimeError(expr.getName(), "Only instances have properties.");
@@ -301,18 +724,20 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         }
 
         Object value = evaluate(expr.getValue());
-        instance.set(expr.getName(), value);
+        expr.getCache().set(instance, expr.getName(), value);
         return value;
     }
 
     @Override
     public Object visitSuperExpr(Expr.Super expr) {
-        int distance = locals.get(expr);
+        int distance = expr.getDepth();
 
-        LoxClass superclass = (LoxClass) environment.getAt(distance, "super");
-        LoxInstance object = (LoxInstance) environment.getAt(distance - 1, "this");
+        // "super" is the only slot of its scope, and "this" is the first
+        // slot of the method scope just inside it.
+        LoxClass superclass = (LoxClass) environment.getAt(distance, 0);
+        LoxInstance object = (LoxInstance) environment.getAt(distance - 1, 0);
 
-        LoxFunction method = superclass.findMethod(expr.getMethod().lexeme());
+        LoxFunction method = superclass.findMethod(expr.getMethod().symbol());
 
         if (method == null) {
             throw new RuntimeError(expr.getMethod(), "Undefined property '" + expr.getMethod().lexeme() + "'.");
@@ -323,7 +748,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitThisExpr(Expr.This expr) {
-        return lookUpVariable(expr.getKeyword(), expr);
+        return environment.getAt(expr.getDepth(), expr.getSlot());
     }
 
     @Override
@@ -331,10 +756,10 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         Object right = evaluate(expr.getRight());
 
         return switch (expr.getOperator().type()) {
-            case BANG -> !this.isTruthy(right);
+            case BANG -> !isTruthy(right);
             case MINUS -> {
                 this.checkNumberOperand(expr.getOperator(), right);
-                yield -(double) right;
+                yield box(-(double) right);
             }
             default -> null;
         };
@@ -342,16 +767,40 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return lookUpVariable(expr.getName(), expr);
+        if (expr.getDepth() >= 0) {
+            return environment.getAt(expr.getDepth(), expr.getSlot());
+        } else {
+            return global(expr).get(expr.getName());
+        }
     }
 
-    private Object lookUpVariable(Token name, Expr expr) {
-        Integer distance = locals.get(expr);
+    private Globals.Cell global(Expr.Variable expr) {
+        Globals.Cell cell = expr.getGlobal();
 
-        if (distance != null) {
-            return environment.getAt(distance, name.lexeme());
+        if (cell == null || !cell.isDefined() || !cell.belongsTo(globals)) {
+            cell = globals.cell(expr.getName().symbol());
+            expr.setGlobal(cell);
+        }
+
+        return cell;
+    }
+
+    private Globals.Cell global(Expr.Assign expr) {
+        Globals.Cell cell = expr.getGlobal();
+
+        if (cell == null || !cell.isDefined() || !cell.belongsTo(globals)) {
+            cell = globals.cell(expr.getName().symbol());
+            expr.setGlobal(cell);
+        }
+
+        return cell;
+    }
+
+    private void define(Token name, Object value) {
+        if (environment == null) {
+            globals.define(name.symbol(), value);
         } else {
-            return globals.get(name);
+            environment.define(value);
         }
     }
 
@@ -362,14 +811,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         throw new RuntimeError(operator, "Operand must be a number.");
     }
 
-    private void checkNumberOperands(Token operator, Object left, Object right) {
-        if (left instanceof Double && right instanceof Double)
-            return;
-
-        throw new RuntimeError(operator, "Operands must be numbers.");
-    }
-
-    private boolean isTruthy(Object object) {
+    public static boolean isTruthy(Object object) {
         if (object == null)
             return false;
 
@@ -379,17 +821,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return true;
     }
 
-    private boolean isEqual(Object a, Object b) {
+    public static boolean isEqual(Object a, Object b) {
         if (a == null && b == null)
             return true;
 
         if (a == null)
             return false;
 
-        return a.equals(b);
+        return ConcatString.flatten(a).equals(ConcatString.flatten(b));
     }
 
-    private String stringify(Object object) {
+    public static String stringify(Object object) {
         if (object == null)
             return "nil";
 
@@ -0,0 +1,182 @@
+package com.craftinginterpreters.lox.interpreter;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Token;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the variables from outside a {@code while} loop that it uses, so
+ * the interpreter can pass them into the compiled loop and take them back.
+ * <p>
+ * Like {@link SelfContained}, this only accepts loops that share nothing
+ * else with the interpreter: no calls, functions, classes, properties or
+ * returns.
+ */
+final class LoopVariables implements Stmt.Visitor<Boolean>, Expr.Visitor<Boolean> {
+
+    private final Map<String, Expr.Variable> variables = new LinkedHashMap<>();
+
+    // The number of block scopes between the loop's scope and the code
+    // being visited.
+    private int innerDepth = 0;
+
+    /**
+     * Returns the variables {@code loop} uses from outside it, resolved from
+     * the scope the loop runs in, or null if the loop can't be compiled.
+     */
+    static List<Expr.Variable> find(Stmt.While loop) {
+        LoopVariables finder = new LoopVariables();
+
+        if (!finder.check(loop.getCondition()) || !finder.check(loop.getBody()))
+            return null;
+
+        return new ArrayList<>(finder.variables.values());
+    }
+
+    private boolean use(Token name, int depth, int slot) {
+        if (depth >= 0 && depth < innerDepth)
+            return true;
+
+        Expr.Variable variable = new Expr.Variable(name);
+        if (depth >= 0)
+            variable.resolve(depth - innerDepth, slot);
+
+        Expr.Variable previous = variables.putIfAbsent(name.lexeme(), variable);
+
+        // The compiled loop names its variables, so one name can't stand
+        // for two of them.
+        return previous == null
+                || previous.getDepth() == variable.getDepth() && previous.getSlot() == variable.getSlot();
+    }
+
+    private boolean check(Expr expr) {
+        return expr == null || expr.accept(this);
+    }
+
+    private boolean check(Stmt stmt) {
+        return stmt == null || stmt.accept(this);
+    }
+
+    private boolean all(Collection<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (!check(statement))
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Boolean visitBlockStmt(Stmt.Block stmt) {
+        innerDepth++;
+        boolean result = all(stmt.getStatements());
+        innerDepth--;
+        return result;
+    }
+
+    @Override
+    public Boolean visitClassStmt(Stmt.Class stmt) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitExpressionStmt(Stmt.Expression stmt) {
+        return check(stmt.getExpression());
+    }
+
+    @Override
+    public Boolean visitFunctionStmt(Stmt.Function stmt) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitIfStmt(Stmt.If stmt) {
+        return check(stmt.getCondition()) && check(stmt.getThenBranch()) && check(stmt.getElseBranch());
+    }
+
+    @Override
+    public Boolean visitPrintStmt(Stmt.Print stmt) {
+        return check(stmt.getExpression());
+    }
+
+    @Override
+    public Boolean visitReturnStmt(Stmt.Return stmt) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitVarStmt(Stmt.Var stmt) {
+        return check(stmt.getInitializer());
+    }
+
+    @Override
+    public Boolean visitWhileStmt(Stmt.While stmt) {
+        return check(stmt.getCondition()) && check(stmt.getBody());
+    }
+
+    @Override
+    public Boolean visitAssignExpr(Expr.Assign expr) {
+        return use(expr.getName(), expr.getDepth(), expr.getSlot()) && check(expr.getValue());
+    }
+
+    @Override
+    public Boolean visitBinaryExpr(Expr.Binary expr) {
+        return check(expr.getLeft()) && check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitCallExpr(Expr.Call expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitGetExpr(Expr.Get expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitGroupingExpr(Expr.Grouping expr) {
+        return check(expr.getExpression());
+    }
+
+    @Override
+    public Boolean visitLiteralExpr(Expr.Literal expr) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitLogicalExpr(Expr.Logical expr) {
+        return check(expr.getLeft()) && check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitSetExpr(Expr.Set expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitSuperExpr(Expr.Super expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitThisExpr(Expr.This expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitUnaryExpr(Expr.Unary expr) {
+        return check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitVariableExpr(Expr.Variable expr) {
+        return use(expr.getName(), expr.getDepth(), expr.getSlot());
+    }
+}
@@ -1,5 +1,6 @@
 package com.craftinginterpreters.lox.interpreter;
 
+import com.craftinginterpreters.lox.ErrorReporter;
 import com.craftinginterpreters.lox.Lox;
 import com.craftinginterpreters.lox.ast.Expr;
 import com.craftinginterpreters.lox.ast.Stmt;
@@ -9,15 +10,11 @@ import java.util.*;
 
 public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
-    private final Interpreter interpreter;
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final ErrorReporter reporter;
+    private final Stack<Map<String, Local>> scopes = new Stack<>();
 
     private FunctionType currentFunction = FunctionType.NONE;
 
-    public Resolver(Interpreter interpreter) {
-        this.interpreter = interpreter;
-    }
-
     private enum FunctionType {
         NONE,
         FUNCTION,
@@ -33,6 +30,27 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     private ClassType currentClass = ClassType.NONE;
 
+    /**
+     * A local variable and the frame slot allocated to it.
+     */
+    private static class Local {
+        private final int slot;
+        private boolean defined;
+
+        private Local(int slot, boolean defined) {
+            this.slot = slot;
+            this.defined = defined;
+        }
+    }
+
+    public Resolver() {
+        this(Lox.REPORTER);
+    }
+
+    public Resolver(ErrorReporter reporter) {
+        this.reporter = reporter;
+    }
+
     public void resolve(Collection<Stmt> statements) {
         for (Stmt statement : statements) {
             resolve(statement);
@@ -44,7 +62,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         beginScope();
         resolve(stmt.getStatements());
 
-        endScope();
+        stmt.setFrameSize(endScope());
         return null;
     }
 
@@ -57,7 +75,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         define(stmt.getName());
 
         if (stmt.getSuperclass() != null && stmt.getName().lexeme().equals(stmt.getSuperclass().getName().lexeme())) {
-            Lox.error(stmt.getSuperclass().getName(), "A class can't inherit from itself.");
+            reporter.error(stmt.getSuperclass().getName(), "A class can't inherit from itself.");
         }
 
         if (stmt.getSuperclass() != null) {
@@ -67,12 +85,9 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
         if (stmt.getSuperclass() != null) {
             beginScope();
-            scopes.peek().put("super", true);
+            scopes.peek().put("super", new Local(0, true));
         }
 
-        beginScope();
-        scopes.peek().put("this", true);
-
         for (Stmt.Function method : stmt.getMethods()) {
             FunctionType declaration = FunctionType.METHOD;
 
@@ -83,8 +98,6 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             resolveFunction(method, declaration);
         }
 
-        endScope();
-
         if (stmt.getSuperclass() != null)
             endScope();
 
@@ -127,14 +140,18 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitReturnStmt(Stmt.Return stmt) {
         if (currentFunction == FunctionType.NONE) {
-            Lox.error(stmt.getKeyword(), "Can't return from top-level code.");
+            reporter.error(stmt.getKeyword(), "Can't return from top-level code.");
         }
 
         if (stmt.getValue() != null) {
             if (currentFunction == FunctionType.INITIALIZER) {
-                Lox.error(stmt.getKeyword(), "Can't return a value from an initializer.");
+                reporter.error(stmt.getKeyword(), "Can't return a value from an initializer.");
             }
 
+            if (stmt.getValue() instanceof Expr.Call
+                    && (currentFunction == FunctionType.FUNCTION || currentFunction == FunctionType.METHOD))
+                stmt.setTailCall(true);
+
             resolve(stmt.getValue());
         }
 
@@ -219,9 +236,9 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitSuperExpr(Expr.Super expr) {
         if (currentClass == ClassType.NONE) {
-            Lox.error(expr.getKeyword(), "Can't use 'super' outside of a class.");
+            reporter.error(expr.getKeyword(), "Can't use 'super' outside of a class.");
         } else if (currentClass != ClassType.SUBCLASS) {
-            Lox.error(expr.getKeyword(), "Can't use 'super' in a class with no superclass.");
+            reporter.error(expr.getKeyword(), "Can't use 'super' in a class with no superclass.");
         }
 
         resolveLocal(expr, expr.getKeyword());
@@ -231,7 +248,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitThisExpr(Expr.This expr) {
         if (currentClass == ClassType.NONE) {
-            Lox.error(expr.getKeyword(), "Can't use 'this' outside of a class.");
+            reporter.error(expr.getKeyword(), "Can't use 'this' outside of a class.");
             return null;
         }
 
@@ -247,8 +264,12 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitVariableExpr(Expr.Variable expr) {
-        if (!scopes.isEmpty() && scopes.peek().get(expr.getName().lexeme()) == Boolean.FALSE) {
-            Lox.error(expr.getName(), "Can't read local variable in its own initializer.");
+        if (!scopes.isEmpty()) {
+            Local local = scopes.peek().get(expr.getName().lexeme());
+
+            if (local != null && !local.defined) {
+                reporter.error(expr.getName(), "Can't read local variable in its own initializer.");
+            }
         }
 
         resolveLocal(expr, expr.getName());
@@ -268,13 +289,21 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         currentFunction = type;
 
         beginScope();
+
+        // The receiver of a method is passed as an implicit first argument,
+        // so "super" is always the scope just outside the one with "this".
+        if (type == FunctionType.METHOD || type == FunctionType.INITIALIZER) {
+            function.setMethod(true);
+            scopes.peek().put("this", new Local(0, true));
+        }
+
         for (Token param : function.getParams()) {
             declare(param);
             define(param);
         }
 
         resolve(function.getBody());
-        endScope();
+        function.setFrameSize(endScope());
 
         currentFunction = enclosingFunction;
     }
@@ -283,34 +312,44 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         scopes.push(new HashMap<>());
     }
 
-    private void endScope() {
-        scopes.pop();
+    /**
+     * Closes the innermost scope, returning the number of slots its frame needs.
+     */
+    private int endScope() {
+        return scopes.pop().size();
     }
 
     private void declare(Token name) {
         if (scopes.isEmpty())
             return;
 
-        Map<String, Boolean> scope = scopes.peek();
+        Map<String, Local> scope = scopes.peek();
 
         if (scope.containsKey(name.lexeme())) {
-            Lox.error(name, "Already a variable with this name in this scope.");
+            reporter.error(name, "Already a variable with this name in this scope.");
+            return;
         }
 
-        scope.put(name.lexeme(), false);
+        scope.put(name.lexeme(), new Local(scope.size(), false));
     }
 
     private void define(Token name) {
         if (scopes.isEmpty())
             return;
 
-        scopes.peek().put(name.lexeme(), true);
+        scopes.peek().get(name.lexeme()).defined = true;
     }
 
-    private void resolveLocal(Expr expr, Token name) {
+    /**
+     * Binds a variable access to the frame slot of its declaration. Accesses
+     * that are left unresolved are looked up as globals at runtime.
+     */
+    private void resolveLocal(Expr.Resolvable expr, Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            if (scopes.get(i).containsKey(name.lexeme())) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
+            Local local = scopes.get(i).get(name.lexeme());
+
+            if (local != null) {
+                expr.resolve(scopes.size() - 1 - i, local.slot);
                 return;
             }
         }
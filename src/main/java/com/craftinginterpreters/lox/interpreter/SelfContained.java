@@ -0,0 +1,165 @@
+package com.craftinginterpreters.lox.interpreter;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+
+import java.util.Collection;
+
+/**
+ * Decides whether a global function can run as compiled code.
+ * <p>
+ * Compiled code has its own classes, instances and globals, so only
+ * functions that share nothing with the interpreter qualify: they may use
+ * their parameters and locals and call themselves, but not read other
+ * globals, declare functions or classes, or touch properties. Calls in tail
+ * position are left to the interpreter, which runs them in constant stack
+ * space.
+ */
+final class SelfContained implements Stmt.Visitor<Boolean>, Expr.Visitor<Boolean> {
+
+    private final Stmt.Function function;
+
+    private SelfContained(Stmt.Function function) {
+        this.function = function;
+    }
+
+    static boolean check(Stmt.Function function) {
+        return new SelfContained(function).all(function.getBody());
+    }
+
+    private boolean all(Collection<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (!statement.accept(this))
+                return false;
+        }
+
+        return true;
+    }
+
+    private boolean check(Expr expr) {
+        return expr == null || expr.accept(this);
+    }
+
+    private boolean check(Stmt stmt) {
+        return stmt == null || stmt.accept(this);
+    }
+
+    @Override
+    public Boolean visitBlockStmt(Stmt.Block stmt) {
+        return all(stmt.getStatements());
+    }
+
+    @Override
+    public Boolean visitClassStmt(Stmt.Class stmt) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitExpressionStmt(Stmt.Expression stmt) {
+        return check(stmt.getExpression());
+    }
+
+    @Override
+    public Boolean visitFunctionStmt(Stmt.Function stmt) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitIfStmt(Stmt.If stmt) {
+        return check(stmt.getCondition()) && check(stmt.getThenBranch()) && check(stmt.getElseBranch());
+    }
+
+    @Override
+    public Boolean visitPrintStmt(Stmt.Print stmt) {
+        return check(stmt.getExpression());
+    }
+
+    @Override
+    public Boolean visitReturnStmt(Stmt.Return stmt) {
+        return !stmt.isTailCall() && check(stmt.getValue());
+    }
+
+    @Override
+    public Boolean visitVarStmt(Stmt.Var stmt) {
+        return check(stmt.getInitializer());
+    }
+
+    @Override
+    public Boolean visitWhileStmt(Stmt.While stmt) {
+        return check(stmt.getCondition()) && check(stmt.getBody());
+    }
+
+    @Override
+    public Boolean visitAssignExpr(Expr.Assign expr) {
+        return expr.getDepth() >= 0 && check(expr.getValue());
+    }
+
+    @Override
+    public Boolean visitBinaryExpr(Expr.Binary expr) {
+        return check(expr.getLeft()) && check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitCallExpr(Expr.Call expr) {
+        // The function itself may only be called, never passed around: its
+        // compiled form means nothing to the interpreter.
+        boolean recursive = expr.getCallee() instanceof Expr.Variable callee
+                && callee.getDepth() < 0
+                && callee.getName().lexeme().equals(function.getName().lexeme());
+
+        if (!recursive && !check(expr.getCallee()))
+            return false;
+
+        for (Expr argument : expr.getArguments()) {
+            if (!check(argument))
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Boolean visitGetExpr(Expr.Get expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitGroupingExpr(Expr.Grouping expr) {
+        return check(expr.getExpression());
+    }
+
+    @Override
+    public Boolean visitLiteralExpr(Expr.Literal expr) {
+        return true;
+    }
+
+    @Override
+    public Boolean visitLogicalExpr(Expr.Logical expr) {
+        return check(expr.getLeft()) && check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitSetExpr(Expr.Set expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitSuperExpr(Expr.Super expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitThisExpr(Expr.This expr) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitUnaryExpr(Expr.Unary expr) {
+        return check(expr.getRight());
+    }
+
+    @Override
+    public Boolean visitVariableExpr(Expr.Variable expr) {
+        return expr.getDepth() >= 0;
+    }
+}
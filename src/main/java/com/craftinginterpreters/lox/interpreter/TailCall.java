@@ -0,0 +1,31 @@
+package com.craftinginterpreters.lox.interpreter;
+
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+
+/**
+ * The completion of a {@code return} whose value is a call in tail position.
+ * <p>
+ * Instead of making the call, the interpreter sets up the callee's frame and
+ * returns this, and {@link LoxFunction#execute} runs the callee in place of
+ * the function that returned. Each interpreter reuses one instance, since it
+ * is consumed before any more Lox code runs.
+ */
+public final class TailCall {
+
+    private LoxFunction function;
+    private Environment frame;
+
+    TailCall set(LoxFunction function, Environment frame) {
+        this.function = function;
+        this.frame = frame;
+        return this;
+    }
+
+    public LoxFunction getFunction() {
+        return function;
+    }
+
+    public Environment getFrame() {
+        return frame;
+    }
+}
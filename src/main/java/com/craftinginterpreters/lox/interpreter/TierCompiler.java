@@ -0,0 +1,38 @@
+package com.craftinginterpreters.lox.interpreter;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.Output;
+
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Compiles functions the tiered interpreter finds hot. The compiler module
+ * depends on this one, so it provides the implementation as a service.
+ */
+public interface TierCompiler {
+
+    /**
+     * Compiles a global function that only uses its parameters, its locals
+     * and itself, or returns null if it can't.
+     */
+    CompiledFunction compile(Stmt.Function function);
+
+    /**
+     * Compiles a loop that uses {@code variables} from outside it and
+     * otherwise only its own locals, or returns null if it can't.
+     */
+    CompiledLoop compile(Stmt.While loop, List<Token> variables);
+
+    /**
+     * Called on the thread about to run a program, so that compiled code
+     * prints to the same {@code output} as the interpreter running it.
+     */
+    void attach(Output output);
+
+    static TierCompiler load() {
+        return ServiceLoader.load(TierCompiler.class).findFirst()
+                .orElseThrow(() -> new IllegalStateException("The 'tiered' engine needs the compiler module on the class path."));
+    }
+}
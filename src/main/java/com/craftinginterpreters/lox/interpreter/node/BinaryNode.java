@@ -0,0 +1,416 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.ConcatString;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+/**
+ * A binary operator. The operator is fixed when the node is built, so
+ * evaluation never switches on the token type. Each operator specializes
+ * on the operand types it observes: while they are numbers it executes its
+ * operands unboxed, and it falls back to a generic variant for good once
+ * they aren't. {@code +} can also specialize on strings.
+ */
+public abstract class BinaryNode extends ExprNode {
+
+    protected final Token operator;
+    protected ExprNode left;
+    protected ExprNode right;
+
+    protected BinaryNode(Token operator, ExprNode left, ExprNode right) {
+        this.operator = operator;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    public static BinaryNode create(Token operator, ExprNode left, ExprNode right) {
+        return switch (operator.type()) {
+            case PLUS -> new Add(operator, left, right);
+            case MINUS -> new Uninitialized(operator, left, right, SubtractNumbers::new);
+            case STAR -> new Uninitialized(operator, left, right, MultiplyNumbers::new);
+            case SLASH -> new Uninitialized(operator, left, right, DivideNumbers::new);
+            case GREATER -> new Uninitialized(operator, left, right, GreaterNumbers::new);
+            case GREATER_EQUAL -> new Uninitialized(operator, left, right, GreaterEqualNumbers::new);
+            case LESS -> new Uninitialized(operator, left, right, LessNumbers::new);
+            case LESS_EQUAL -> new Uninitialized(operator, left, right, LessEqualNumbers::new);
+            case EQUAL_EQUAL -> new Uninitialized(operator, left, right, EqualNumbers::new);
+            case BANG_EQUAL -> new Uninitialized(operator, left, right, NotEqualNumbers::new);
+            default -> throw new IllegalArgumentException("Unexpected binary operator: " + operator);
+        };
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        return apply(left.execute(frame), right.execute(frame));
+    }
+
+    protected abstract Object apply(Object left, Object right);
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        if (left == child)
+            left = (ExprNode) replacement;
+
+        if (right == child)
+            right = (ExprNode) replacement;
+    }
+
+    protected RuntimeError numbersExpected() {
+        return new RuntimeError(operator, "Operands must be numbers.");
+    }
+
+    private interface NumbersFactory {
+        Numbers create(Token operator, ExprNode left, ExprNode right);
+    }
+
+    /**
+     * An operator other than {@code +} before it has seen any operands.
+     */
+    private static class Uninitialized extends BinaryNode {
+
+        private final NumbersFactory numbers;
+
+        private Uninitialized(Token operator, ExprNode left, ExprNode right, NumbersFactory numbers) {
+            super(operator, left, right);
+            this.numbers = numbers;
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            Numbers specialized = replace(numbers.create(operator, this.left, this.right));
+
+            if (left instanceof Double && right instanceof Double)
+                return specialized.apply(left, right);
+
+            return specialized.generalize().apply(left, right);
+        }
+    }
+
+    /**
+     * An operator specialized on numbers. Its operands are executed unboxed,
+     * and the first one that isn't a number makes it replace itself with
+     * its generic variant.
+     */
+    private abstract static class Numbers extends BinaryNode {
+
+        private Numbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        protected abstract Object compute(double left, double right);
+
+        /**
+         * Replaces this node with the variant that takes any operands.
+         */
+        protected BinaryNode generalize() {
+            return replace(new Generic(this));
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            double a;
+
+            try {
+                a = left.executeNumber(frame);
+            } catch (UnexpectedResult e) {
+                return generalize().apply(e.getResult(), right.execute(frame));
+            }
+
+            try {
+                return compute(a, right.executeNumber(frame));
+            } catch (UnexpectedResult e) {
+                return generalize().apply(a, e.getResult());
+            }
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b)
+                return compute(a, b);
+
+            return generalize().apply(left, right);
+        }
+    }
+
+    /**
+     * Arithmetic specialized on numbers, which hands its result to a parent
+     * that is also specialized on numbers without boxing it.
+     */
+    private abstract static class Arithmetic extends Numbers {
+
+        private Arithmetic(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        protected abstract double calculate(double left, double right);
+
+        @Override
+        protected Object compute(double left, double right) {
+            return calculate(left, right);
+        }
+
+        @Override
+        public double executeNumber(Environment frame) throws UnexpectedResult {
+            double a;
+
+            try {
+                a = left.executeNumber(frame);
+            } catch (UnexpectedResult e) {
+                return number(generalize().apply(e.getResult(), right.execute(frame)));
+            }
+
+            try {
+                return calculate(a, right.executeNumber(frame));
+            } catch (UnexpectedResult e) {
+                return number(generalize().apply(a, e.getResult()));
+            }
+        }
+
+        private static double number(Object value) throws UnexpectedResult {
+            if (value instanceof Double number)
+                return number;
+
+            throw new UnexpectedResult(value);
+        }
+    }
+
+    /**
+     * An operator that only takes numbers, after it has seen something else.
+     */
+    private static class Generic extends BinaryNode {
+
+        private final Numbers operation;
+
+        private Generic(Numbers operation) {
+            super(operation.operator, operation.left, operation.right);
+            this.operation = operation;
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b)
+                return operation.compute(a, b);
+
+            throw numbersExpected();
+        }
+    }
+
+    /**
+     * {@code +} before it has seen any operands.
+     */
+    private static class Add extends BinaryNode {
+
+        private Add(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left instanceof Double && right instanceof Double)
+                return replace(new AddNumbers(operator, this.left, this.right)).apply(left, right);
+
+            if (ConcatString.isString(left) && ConcatString.isString(right))
+                return replace(new AddStrings(operator, this.left, this.right)).apply(left, right);
+
+            return replace(new AddGeneric(operator, this.left, this.right)).apply(left, right);
+        }
+    }
+
+    private static class AddNumbers extends Arithmetic {
+
+        private AddNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected double calculate(double left, double right) {
+            return left + right;
+        }
+
+        @Override
+        protected BinaryNode generalize() {
+            return replace(new AddGeneric(operator, left, right));
+        }
+    }
+
+    private static class AddStrings extends BinaryNode {
+
+        private AddStrings(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left instanceof CharSequence a && right instanceof CharSequence b)
+                return ConcatString.concat(a, b);
+
+            return replace(new AddGeneric(operator, this.left, this.right)).apply(left, right);
+        }
+    }
+
+    private static class AddGeneric extends BinaryNode {
+
+        private AddGeneric(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            if (left instanceof Double a && right instanceof Double b)
+                return a + b;
+
+            if (left instanceof CharSequence a && right instanceof CharSequence b)
+                return ConcatString.concat(a, b);
+
+            throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+        }
+    }
+
+    private static class SubtractNumbers extends Arithmetic {
+
+        private SubtractNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected double calculate(double left, double right) {
+            return left - right;
+        }
+    }
+
+    private static class MultiplyNumbers extends Arithmetic {
+
+        private MultiplyNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected double calculate(double left, double right) {
+            return left * right;
+        }
+    }
+
+    private static class DivideNumbers extends Arithmetic {
+
+        private DivideNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected double calculate(double left, double right) {
+            return left / right;
+        }
+    }
+
+    private static class GreaterNumbers extends Numbers {
+
+        private GreaterNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return left > right;
+        }
+    }
+
+    private static class GreaterEqualNumbers extends Numbers {
+
+        private GreaterEqualNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return left >= right;
+        }
+    }
+
+    private static class LessNumbers extends Numbers {
+
+        private LessNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return left < right;
+        }
+    }
+
+    private static class LessEqualNumbers extends Numbers {
+
+        private LessEqualNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return left <= right;
+        }
+    }
+
+    /**
+     * {@code ==} of two numbers, which like {@link Interpreter#isEqual}
+     * compares them as {@link Double#equals} does, so NaN equals itself.
+     */
+    private static class EqualNumbers extends Numbers {
+
+        private EqualNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+        }
+
+        @Override
+        protected BinaryNode generalize() {
+            return replace(new EqualGeneric(operator, left, right));
+        }
+    }
+
+    private static class EqualGeneric extends BinaryNode {
+
+        private EqualGeneric(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return Interpreter.isEqual(left, right);
+        }
+    }
+
+    private static class NotEqualNumbers extends Numbers {
+
+        private NotEqualNumbers(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object compute(double left, double right) {
+            return Double.doubleToLongBits(left) != Double.doubleToLongBits(right);
+        }
+
+        @Override
+        protected BinaryNode generalize() {
+            return replace(new NotEqualGeneric(operator, left, right));
+        }
+    }
+
+    private static class NotEqualGeneric extends BinaryNode {
+
+        private NotEqualGeneric(Token operator, ExprNode left, ExprNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        protected Object apply(Object left, Object right) {
+            return !Interpreter.isEqual(left, right);
+        }
+    }
+}
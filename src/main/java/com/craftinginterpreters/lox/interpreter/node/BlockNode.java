@@ -0,0 +1,19 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public class BlockNode extends StmtNode {
+
+    private final StmtNode[] statements;
+    private final int frameSize;
+
+    public BlockNode(StmtNode[] statements, int frameSize) {
+        this.statements = adopt(statements);
+        this.frameSize = frameSize;
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        return executeAll(statements, new Environment(frame, frameSize));
+    }
+}
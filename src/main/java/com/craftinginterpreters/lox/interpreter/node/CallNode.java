@@ -0,0 +1,118 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxCallable;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+import java.util.Arrays;
+
+/**
+ * A call. The first call specializes the node: if the callee is a Lox
+ * function the node caches its {@link FunctionRoot} and later calls to any
+ * closure of the same declaration skip the callable and arity checks.
+ */
+public abstract class CallNode extends ExprNode {
+
+    protected final Interpreter interpreter;
+    protected final Token paren;
+    protected ExprNode callee;
+    protected final ExprNode[] arguments;
+
+    protected CallNode(Interpreter interpreter, Token paren, ExprNode callee, ExprNode[] arguments) {
+        this.interpreter = interpreter;
+        this.paren = paren;
+        this.callee = adopt(callee);
+        this.arguments = adopt(arguments);
+    }
+
+    public static CallNode create(Interpreter interpreter, Token paren, ExprNode callee, ExprNode[] arguments) {
+        return new Uninitialized(interpreter, paren, callee, arguments);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        Object function = callee.execute(frame);
+
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+
+        return call(function, values);
+    }
+
+    protected abstract Object call(Object function, Object[] arguments);
+
+    static Object callGeneric(Interpreter interpreter, Token paren, Object function, Object[] arguments) {
+        if (!(function instanceof LoxCallable callable))
+            throw new RuntimeError(paren, "Can only call functions and classes.");
+
+        if (arguments.length != callable.arity())
+            throw new RuntimeError(paren, "Expected " + callable.arity() + " arguments but got " + arguments.length + ".");
+
+        if (callable instanceof NodeFunction nodeFunction)
+            return nodeFunction.invoke(arguments);
+
+        return callable.call(interpreter, Arrays.asList(arguments));
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        if (callee == child) {
+            callee = (ExprNode) replacement;
+            return;
+        }
+
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == child)
+                arguments[i] = (ExprNode) replacement;
+        }
+    }
+
+    private static class Uninitialized extends CallNode {
+
+        private Uninitialized(Interpreter interpreter, Token paren, ExprNode callee, ExprNode[] arguments) {
+            super(interpreter, paren, callee, arguments);
+        }
+
+        @Override
+        protected Object call(Object function, Object[] arguments) {
+            if (function instanceof NodeFunction nodeFunction && nodeFunction.arity() == arguments.length)
+                return replace(new Direct(interpreter, paren, callee, this.arguments, nodeFunction.getRoot())).call(function, arguments);
+
+            return replace(new Generic(interpreter, paren, callee, this.arguments)).call(function, arguments);
+        }
+    }
+
+    private static class Direct extends CallNode {
+
+        private final FunctionRoot root;
+
+        private Direct(Interpreter interpreter, Token paren, ExprNode callee, ExprNode[] arguments, FunctionRoot root) {
+            super(interpreter, paren, callee, arguments);
+            this.root = root;
+        }
+
+        @Override
+        protected Object call(Object function, Object[] arguments) {
+            if (function instanceof NodeFunction nodeFunction && nodeFunction.getRoot() == root)
+                return nodeFunction.invoke(arguments);
+
+            return replace(new Generic(interpreter, paren, callee, this.arguments)).call(function, arguments);
+        }
+    }
+
+    private static class Generic extends CallNode {
+
+        private Generic(Interpreter interpreter, Token paren, ExprNode callee, ExprNode[] arguments) {
+            super(interpreter, paren, callee, arguments);
+        }
+
+        @Override
+        protected Object call(Object function, Object[] arguments) {
+            return callGeneric(interpreter, paren, function, arguments);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxClass;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.util.RuntimeError;
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+public class ClassNode extends DeclarationNode {
+
+    private final Token superclassName;
+    private ExprNode superclass;
+    private final FunctionRoot[] methods;
+
+    public ClassNode(Token name, Globals globals, Token superclassName, ExprNode superclass, FunctionRoot[] methods) {
+        super(name, globals);
+        this.superclassName = superclassName;
+        this.superclass = adopt(superclass);
+        this.methods = adopt(methods);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        LoxClass loxSuperclass = null;
+        Environment environment = frame;
+
+        if (superclass != null) {
+            if (!(superclass.execute(frame) instanceof LoxClass loxClass))
+                throw new RuntimeError(superclassName, "Superclass must be a class.");
+
+            loxSuperclass = loxClass;
+            environment = new Environment(frame, 1);
+            environment.define(loxSuperclass);
+        }
+
+        SymbolMap<LoxFunction> functions = new SymbolMap<>();
+        for (FunctionRoot method : methods) {
+            Token methodName = method.getDeclaration().getName();
+            functions.put(methodName.symbol(), new NodeFunction(method, environment, methodName.lexeme().equals("init")));
+        }
+
+        define(frame, new LoxClass(name.lexeme(), loxSuperclass, functions));
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        superclass = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,32 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+
+/**
+ * A statement that declares a name, either in the current frame or, at the
+ * top level, in the globals.
+ */
+public abstract class DeclarationNode extends StmtNode {
+
+    protected final Token name;
+    private final Globals globals;
+
+    /**
+     * @param globals the globals to define {@code name} in, or {@code null}
+     *                to define it in the next slot of the current frame.
+     */
+    protected DeclarationNode(Token name, Globals globals) {
+        this.name = name;
+        this.globals = globals;
+    }
+
+    protected void define(Environment frame, Object value) {
+        if (globals != null) {
+            globals.define(name.symbol(), value);
+        } else {
+            frame.define(value);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public abstract class ExprNode extends Node {
+
+    public abstract Object execute(Environment frame);
+
+    /**
+     * Executes this node for a parent that has specialized on numbers.
+     * Arithmetic nodes override it to pass their result on unboxed.
+     *
+     * @throws UnexpectedResult if the value isn't a number.
+     */
+    public double executeNumber(Environment frame) throws UnexpectedResult {
+        Object value = execute(frame);
+
+        if (value instanceof Double number)
+            return number;
+
+        throw new UnexpectedResult(value);
+    }
+}
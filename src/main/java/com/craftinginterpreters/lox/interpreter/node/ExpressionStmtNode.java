@@ -0,0 +1,23 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public class ExpressionStmtNode extends StmtNode {
+
+    private ExprNode expression;
+
+    public ExpressionStmtNode(ExprNode expression) {
+        this.expression = adopt(expression);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        expression.execute(frame);
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        expression = (ExprNode) replacement;
+    }
+}
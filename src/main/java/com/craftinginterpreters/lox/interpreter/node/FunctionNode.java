@@ -0,0 +1,21 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+
+public class FunctionNode extends DeclarationNode {
+
+    private final FunctionRoot root;
+
+    public FunctionNode(Token name, Globals globals, FunctionRoot root) {
+        super(name, globals);
+        this.root = root;
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        define(frame, new NodeFunction(root, frame, false));
+        return NORMAL;
+    }
+}
@@ -0,0 +1,35 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+/**
+ * The executable body of a function declaration. It is built once and
+ * shared by every closure created from the declaration.
+ */
+public class FunctionRoot extends Node {
+
+    private final Stmt.Function declaration;
+    private StmtNode[] body;
+
+    public FunctionRoot(Stmt.Function declaration) {
+        this.declaration = declaration;
+    }
+
+    void setBody(StmtNode[] body) {
+        this.body = adopt(body);
+    }
+
+    public Stmt.Function getDeclaration() {
+        return declaration;
+    }
+
+    public int getFrameSize() {
+        return declaration.getFrameSize();
+    }
+
+    public Object execute(Environment frame) {
+        Object result = StmtNode.executeAll(body, frame);
+        return result == StmtNode.NORMAL ? null : result;
+    }
+}
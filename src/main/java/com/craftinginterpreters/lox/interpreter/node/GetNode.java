@@ -0,0 +1,32 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.runtime.PropertyCache;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+public class GetNode extends ExprNode {
+
+    private final Token name;
+    private final PropertyCache cache = new PropertyCache();
+    private ExprNode object;
+
+    public GetNode(ExprNode object, Token name) {
+        this.name = name;
+        this.object = adopt(object);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        if (object.execute(frame) instanceof LoxInstance instance)
+            return cache.get(instance, name);
+
+        throw new RuntimeError(name, "Only instances have properties.");
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        object = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,27 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+
+public class GlobalReadNode extends ExprNode {
+
+    private final Globals globals;
+    private final Token name;
+    private Globals.Cell cell;
+
+    public GlobalReadNode(Globals globals, Token name) {
+        this.globals = globals;
+        this.name = name;
+        this.cell = globals.cell(name.symbol());
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        // The name may have been defined since it was last looked up.
+        if (!cell.isDefined())
+            cell = globals.cell(name.symbol());
+
+        return cell.get(name);
+    }
+}
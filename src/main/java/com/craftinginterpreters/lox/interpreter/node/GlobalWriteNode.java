@@ -0,0 +1,37 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+
+public class GlobalWriteNode extends ExprNode {
+
+    private final Globals globals;
+    private final Token name;
+    private Globals.Cell cell;
+    private ExprNode value;
+
+    public GlobalWriteNode(Globals globals, Token name, ExprNode value) {
+        this.globals = globals;
+        this.name = name;
+        this.cell = globals.cell(name.symbol());
+        this.value = adopt(value);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        Object result = value.execute(frame);
+
+        // The name may have been defined since it was last looked up.
+        if (!cell.isDefined())
+            cell = globals.cell(name.symbol());
+
+        cell.assign(name, result);
+        return result;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        value = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,33 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+
+public class IfNode extends StmtNode {
+
+    private ExprNode condition;
+    private final StmtNode thenBranch;
+    private final StmtNode elseBranch;
+
+    public IfNode(ExprNode condition, StmtNode thenBranch, StmtNode elseBranch) {
+        this.condition = adopt(condition);
+        this.thenBranch = adopt(thenBranch);
+        this.elseBranch = adopt(elseBranch);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        if (Interpreter.isTruthy(condition.execute(frame)))
+            return thenBranch.execute(frame);
+
+        if (elseBranch != null)
+            return elseBranch.execute(frame);
+
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        condition = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,71 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.runtime.PropertyCache;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+import java.util.Arrays;
+
+/**
+ * A call of a property, {@code object.name(arguments)}. Methods are invoked
+ * with the instance as their receiver instead of being bound first.
+ */
+public class InvokeNode extends ExprNode {
+
+    private final Interpreter interpreter;
+    private final Token paren;
+    private final Token name;
+    private final PropertyCache cache = new PropertyCache();
+    private ExprNode object;
+    private final ExprNode[] arguments;
+
+    public InvokeNode(Interpreter interpreter, Token paren, ExprNode object, Token name, ExprNode[] arguments) {
+        this.interpreter = interpreter;
+        this.paren = paren;
+        this.name = name;
+        this.object = adopt(object);
+        this.arguments = adopt(arguments);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        if (!(object.execute(frame) instanceof LoxInstance instance))
+            throw new RuntimeError(name, "Only instances have properties.");
+
+        LoxFunction method = cache.getMethod(instance, name);
+        Object field = method == null ? cache.get(instance, name) : null;
+
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+
+        if (method == null)
+            return CallNode.callGeneric(interpreter, paren, field, values);
+
+        if (values.length != method.arity())
+            throw new RuntimeError(paren, "Expected " + method.arity() + " arguments but got " + values.length + ".");
+
+        if (method instanceof NodeFunction nodeFunction)
+            return nodeFunction.invoke(instance, values);
+
+        return method.call(interpreter, instance, Arrays.asList(values));
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        if (object == child) {
+            object = (ExprNode) replacement;
+            return;
+        }
+
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == child)
+                arguments[i] = (ExprNode) replacement;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public class LiteralNode extends ExprNode {
+
+    private final Object value;
+
+    public LiteralNode(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+/**
+ * Reads a resolved local. Reads from the current frame, by far the most
+ * common case, skip the walk up the enclosing frames.
+ */
+public abstract class LocalReadNode extends ExprNode {
+
+    protected final int slot;
+
+    private LocalReadNode(int slot) {
+        this.slot = slot;
+    }
+
+    public static LocalReadNode create(int depth, int slot) {
+        return depth == 0 ? new Current(slot) : new Enclosing(depth, slot);
+    }
+
+    private static class Current extends LocalReadNode {
+
+        private Current(int slot) {
+            super(slot);
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            return frame.get(slot);
+        }
+    }
+
+    private static class Enclosing extends LocalReadNode {
+
+        private final int depth;
+
+        private Enclosing(int depth, int slot) {
+            super(slot);
+            this.depth = depth;
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            return frame.getAt(depth, slot);
+        }
+    }
+}
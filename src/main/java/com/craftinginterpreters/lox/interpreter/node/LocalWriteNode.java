@@ -0,0 +1,28 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public class LocalWriteNode extends ExprNode {
+
+    private final int depth;
+    private final int slot;
+    private ExprNode value;
+
+    public LocalWriteNode(int depth, int slot, ExprNode value) {
+        this.depth = depth;
+        this.slot = slot;
+        this.value = adopt(value);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        Object result = value.execute(frame);
+        frame.assignAt(depth, slot, result);
+        return result;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        value = (ExprNode) replacement;
+    }
+}
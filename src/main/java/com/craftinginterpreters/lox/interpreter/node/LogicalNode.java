@@ -0,0 +1,67 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Token;
+
+public abstract class LogicalNode extends ExprNode {
+
+    protected ExprNode left;
+    protected ExprNode right;
+
+    protected LogicalNode(ExprNode left, ExprNode right) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    public static LogicalNode create(Token operator, ExprNode left, ExprNode right) {
+        return switch (operator.type()) {
+            case AND -> new And(left, right);
+            case OR -> new Or(left, right);
+            default -> throw new IllegalArgumentException("Unexpected logical operator: " + operator);
+        };
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        if (left == child)
+            left = (ExprNode) replacement;
+
+        if (right == child)
+            right = (ExprNode) replacement;
+    }
+
+    private static class And extends LogicalNode {
+
+        private And(ExprNode left, ExprNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            Object value = left.execute(frame);
+
+            if (!Interpreter.isTruthy(value))
+                return value;
+
+            return right.execute(frame);
+        }
+    }
+
+    private static class Or extends LogicalNode {
+
+        private Or(ExprNode left, ExprNode right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            Object value = left.execute(frame);
+
+            if (Interpreter.isTruthy(value))
+                return value;
+
+            return right.execute(frame);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+/**
+ * Base class of the executable tree built by {@link NodeBuilder}.
+ * <p>
+ * Nodes specialize by replacing themselves in their parent with a variant
+ * for the operand types they have observed, so every node that owns
+ * expression children must be able to swap them.
+ */
+public abstract class Node {
+
+    private Node parent;
+
+    protected <T extends Node> T adopt(T child) {
+        if (child != null)
+            ((Node) child).parent = this;
+
+        return child;
+    }
+
+    protected <T extends Node> T[] adopt(T[] children) {
+        for (T child : children) {
+            adopt(child);
+        }
+
+        return children;
+    }
+
+    /**
+     * Replaces this node with {@code replacement} in its parent. The caller
+     * must finish the current execution through the returned node.
+     */
+    protected <T extends Node> T replace(T replacement) {
+        parent.replaceChild(this, replacement);
+        return parent.adopt(replacement);
+    }
+
+    protected void replaceChild(Node child, Node replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no replaceable children.");
+    }
+}
@@ -0,0 +1,200 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+
+import java.util.Collection;
+
+/**
+ * Converts a resolved AST into an executable node tree. This happens once
+ * per program; from then on nothing dispatches through the AST visitors.
+ */
+public class NodeBuilder implements Expr.Visitor<ExprNode>, Stmt.Visitor<StmtNode> {
+
+    private final Interpreter interpreter;
+    private final Globals globals;
+
+    // The number of enclosing local scopes; declarations at depth 0 are globals.
+    private int scopes = 0;
+
+    public NodeBuilder(Interpreter interpreter, Globals globals) {
+        this.interpreter = interpreter;
+        this.globals = globals;
+    }
+
+    public StmtNode[] build(Collection<Stmt> statements) {
+        StmtNode[] nodes = new StmtNode[statements.size()];
+
+        int i = 0;
+        for (Stmt statement : statements) {
+            nodes[i++] = statement.accept(this);
+        }
+
+        return nodes;
+    }
+
+    private ExprNode build(Expr expr) {
+        return expr != null ? expr.accept(this) : null;
+    }
+
+    private StmtNode build(Stmt stmt) {
+        return stmt != null ? stmt.accept(this) : null;
+    }
+
+    private FunctionRoot function(Stmt.Function stmt) {
+        FunctionRoot root = new FunctionRoot(stmt);
+
+        scopes++;
+        root.setBody(build(stmt.getBody()));
+        scopes--;
+
+        return root;
+    }
+
+    private Globals declarationScope() {
+        return scopes == 0 ? globals : null;
+    }
+
+    @Override
+    public StmtNode visitBlockStmt(Stmt.Block stmt) {
+        scopes++;
+        StmtNode[] statements = build(stmt.getStatements());
+        scopes--;
+
+        return new BlockNode(statements, stmt.getFrameSize());
+    }
+
+    @Override
+    public StmtNode visitClassStmt(Stmt.Class stmt) {
+        FunctionRoot[] methods = new FunctionRoot[stmt.getMethods().size()];
+
+        int i = 0;
+        for (Stmt.Function method : stmt.getMethods()) {
+            methods[i++] = function(method);
+        }
+
+        Expr.Variable superclass = stmt.getSuperclass();
+        return new ClassNode(
+            stmt.getName(),
+            declarationScope(),
+            superclass != null ? superclass.getName() : null,
+            build(superclass),
+            methods
+        );
+    }
+
+    @Override
+    public StmtNode visitExpressionStmt(Stmt.Expression stmt) {
+        return new ExpressionStmtNode(build(stmt.getExpression()));
+    }
+
+    @Override
+    public StmtNode visitFunctionStmt(Stmt.Function stmt) {
+        return new FunctionNode(stmt.getName(), declarationScope(), function(stmt));
+    }
+
+    @Override
+    public StmtNode visitIfStmt(Stmt.If stmt) {
+        return new IfNode(build(stmt.getCondition()), build(stmt.getThenBranch()), build(stmt.getElseBranch()));
+    }
+
+    @Override
+    public StmtNode visitPrintStmt(Stmt.Print stmt) {
+        return new PrintNode(interpreter.getOutput(), build(stmt.getExpression()));
+    }
+
+    @Override
+    public StmtNode visitReturnStmt(Stmt.Return stmt) {
+        return new ReturnNode(build(stmt.getValue()));
+    }
+
+    @Override
+    public StmtNode visitVarStmt(Stmt.Var stmt) {
+        return new VarNode(stmt.getName(), declarationScope(), build(stmt.getInitializer()));
+    }
+
+    @Override
+    public StmtNode visitWhileStmt(Stmt.While stmt) {
+        return new WhileNode(build(stmt.getCondition()), build(stmt.getBody()));
+    }
+
+    @Override
+    public ExprNode visitAssignExpr(Expr.Assign expr) {
+        ExprNode value = build(expr.getValue());
+
+        if (expr.getDepth() >= 0)
+            return new LocalWriteNode(expr.getDepth(), expr.getSlot(), value);
+
+        return new GlobalWriteNode(globals, expr.getName(), value);
+    }
+
+    @Override
+    public ExprNode visitBinaryExpr(Expr.Binary expr) {
+        return BinaryNode.create(expr.getOperator(), build(expr.getLeft()), build(expr.getRight()));
+    }
+
+    @Override
+    public ExprNode visitCallExpr(Expr.Call expr) {
+        ExprNode[] arguments = new ExprNode[expr.getArguments().size()];
+
+        int i = 0;
+        for (Expr argument : expr.getArguments()) {
+            arguments[i++] = build(argument);
+        }
+
+        if (expr.getCallee() instanceof Expr.Get get)
+            return new InvokeNode(interpreter, expr.getParen(), build(get.getObject()), get.getName(), arguments);
+
+        return CallNode.create(interpreter, expr.getParen(), build(expr.getCallee()), arguments);
+    }
+
+    @Override
+    public ExprNode visitGetExpr(Expr.Get expr) {
+        return new GetNode(build(expr.getObject()), expr.getName());
+    }
+
+    @Override
+    public ExprNode visitGroupingExpr(Expr.Grouping expr) {
+        return build(expr.getExpression());
+    }
+
+    @Override
+    public ExprNode visitLiteralExpr(Expr.Literal expr) {
+        return new LiteralNode(expr.getValue());
+    }
+
+    @Override
+    public ExprNode visitLogicalExpr(Expr.Logical expr) {
+        return LogicalNode.create(expr.getOperator(), build(expr.getLeft()), build(expr.getRight()));
+    }
+
+    @Override
+    public ExprNode visitSetExpr(Expr.Set expr) {
+        return new SetNode(build(expr.getObject()), expr.getName(), build(expr.getValue()));
+    }
+
+    @Override
+    public ExprNode visitSuperExpr(Expr.Super expr) {
+        return new SuperNode(expr.getDepth(), expr.getMethod());
+    }
+
+    @Override
+    public ExprNode visitThisExpr(Expr.This expr) {
+        return LocalReadNode.create(expr.getDepth(), expr.getSlot());
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(Expr.Unary expr) {
+        return UnaryNode.create(expr.getOperator(), build(expr.getRight()));
+    }
+
+    @Override
+    public ExprNode visitVariableExpr(Expr.Variable expr) {
+        if (expr.getDepth() >= 0)
+            return LocalReadNode.create(expr.getDepth(), expr.getSlot());
+
+        return new GlobalReadNode(globals, expr.getName());
+    }
+}
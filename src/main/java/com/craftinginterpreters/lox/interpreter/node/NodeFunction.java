@@ -0,0 +1,65 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+
+import java.util.List;
+
+/**
+ * A closure over a {@link FunctionRoot}. Calls from the node tree go through
+ * {@link #invoke(Object[])} and never allocate an argument list.
+ */
+public class NodeFunction extends LoxFunction {
+
+    private final FunctionRoot root;
+
+    public NodeFunction(FunctionRoot root, Environment closure, boolean isInitializer) {
+        super(root.getDeclaration(), closure, isInitializer);
+        this.root = root;
+    }
+
+    public FunctionRoot getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return invoke(arguments.toArray());
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, LoxInstance receiver, List<Object> arguments) {
+        return invoke(receiver, arguments.toArray());
+    }
+
+    public Object invoke(Object[] arguments) {
+        Environment frame = new Environment(getClosure(), root.getFrameSize());
+
+        for (Object argument : arguments) {
+            frame.define(argument);
+        }
+
+        return root.execute(frame);
+    }
+
+    /**
+     * Calls this function as a method of {@code receiver}.
+     */
+    public Object invoke(LoxInstance receiver, Object[] arguments) {
+        Environment frame = new Environment(getClosure(), root.getFrameSize());
+        frame.define(receiver);
+
+        for (Object argument : arguments) {
+            frame.define(argument);
+        }
+
+        Object result = root.execute(frame);
+
+        if (isInitializer())
+            return receiver;
+
+        return result;
+    }
+}
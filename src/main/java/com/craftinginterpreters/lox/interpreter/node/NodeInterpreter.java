@@ -0,0 +1,38 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.ErrorReporter;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+import java.util.Collection;
+
+/**
+ * An interpreter that runs programs on a self-specializing node tree
+ * instead of walking the AST. Globals and natives are shared with the
+ * tree-walking {@link Interpreter} it extends.
+ */
+public class NodeInterpreter extends Interpreter {
+
+    public NodeInterpreter() {
+    }
+
+    public NodeInterpreter(ErrorReporter reporter, Output output) {
+        super(reporter, output, null, 0);
+    }
+
+    @Override
+    public void interpret(Collection<Stmt> statements) {
+        StmtNode[] program = new NodeBuilder(this, getGlobals()).build(statements);
+
+        try {
+            // Top-level code has no frame: its declarations are globals.
+            for (StmtNode statement : program) {
+                statement.execute(null);
+            }
+        } catch (RuntimeError error) {
+            getReporter().runtimeError(error);
+        }
+    }
+}
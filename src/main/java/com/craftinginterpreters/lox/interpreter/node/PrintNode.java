@@ -0,0 +1,27 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.runtime.Output;
+
+public class PrintNode extends StmtNode {
+
+    private final Output output;
+    private ExprNode expression;
+
+    public PrintNode(Output output, ExprNode expression) {
+        this.output = output;
+        this.expression = adopt(expression);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        output.println(Interpreter.stringify(expression.execute(frame)));
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        expression = (ExprNode) replacement;
+    }
+}
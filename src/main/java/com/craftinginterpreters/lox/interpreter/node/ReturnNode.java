@@ -0,0 +1,22 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public class ReturnNode extends StmtNode {
+
+    private ExprNode value;
+
+    public ReturnNode(ExprNode value) {
+        this.value = adopt(value);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        return value != null ? value.execute(frame) : null;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        value = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,40 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.runtime.PropertyCache;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+public class SetNode extends ExprNode {
+
+    private final Token name;
+    private final PropertyCache cache = new PropertyCache();
+    private ExprNode object;
+    private ExprNode value;
+
+    public SetNode(ExprNode object, Token name, ExprNode value) {
+        this.name = name;
+        this.object = adopt(object);
+        this.value = adopt(value);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        if (!(object.execute(frame) instanceof LoxInstance instance))
+            throw new RuntimeError(name, "Only instances have fields.");
+
+        Object result = value.execute(frame);
+        cache.set(instance, name, result);
+        return result;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        if (object == child)
+            object = (ExprNode) replacement;
+
+        if (value == child)
+            value = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,29 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+
+public abstract class StmtNode extends Node {
+
+    /**
+     * The result of a statement that completed normally. Any other
+     * result is the value of an executed {@code return}.
+     */
+    public static final Object NORMAL = new Object();
+
+    public abstract Object execute(Environment frame);
+
+    /**
+     * Executes {@code statements} in order, stopping at the first one
+     * that returns.
+     */
+    protected static Object executeAll(StmtNode[] statements, Environment frame) {
+        for (StmtNode statement : statements) {
+            Object result = statement.execute(frame);
+
+            if (result != NORMAL)
+                return result;
+        }
+
+        return NORMAL;
+    }
+}
@@ -0,0 +1,34 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.runtime.LoxClass;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+public class SuperNode extends ExprNode {
+
+    private final int depth;
+    private final Token method;
+
+    public SuperNode(int depth, Token method) {
+        this.depth = depth;
+        this.method = method;
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        // "super" is the only slot of its scope, and "this" is the first
+        // slot of the method scope just inside it.
+        LoxClass superclass = (LoxClass) frame.getAt(depth, 0);
+        LoxInstance object = (LoxInstance) frame.getAt(depth - 1, 0);
+
+        LoxFunction function = superclass.findMethod(method.symbol());
+
+        if (function == null)
+            throw new RuntimeError(method, "Undefined property '" + method.lexeme() + "'.");
+
+        return function.bind(object);
+    }
+}
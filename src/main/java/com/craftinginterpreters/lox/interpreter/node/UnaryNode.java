@@ -0,0 +1,63 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+public abstract class UnaryNode extends ExprNode {
+
+    protected final Token operator;
+    protected ExprNode operand;
+
+    protected UnaryNode(Token operator, ExprNode operand) {
+        this.operator = operator;
+        this.operand = adopt(operand);
+    }
+
+    public static UnaryNode create(Token operator, ExprNode operand) {
+        return switch (operator.type()) {
+            case BANG -> new Not(operator, operand);
+            case MINUS -> new Negate(operator, operand);
+            default -> throw new IllegalArgumentException("Unexpected unary operator: " + operator);
+        };
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        operand = (ExprNode) replacement;
+    }
+
+    private static class Not extends UnaryNode {
+
+        private Not(Token operator, ExprNode operand) {
+            super(operator, operand);
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            return !Interpreter.isTruthy(operand.execute(frame));
+        }
+    }
+
+    private static class Negate extends UnaryNode {
+
+        private Negate(Token operator, ExprNode operand) {
+            super(operator, operand);
+        }
+
+        @Override
+        public Object execute(Environment frame) {
+            return executeNumber(frame);
+        }
+
+        @Override
+        public double executeNumber(Environment frame) {
+            try {
+                return -operand.executeNumber(frame);
+            } catch (UnexpectedResult e) {
+                throw new RuntimeError(operator, "Operand must be a number.");
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+/**
+ * Thrown by {@link ExprNode#executeNumber} when a node's value isn't a
+ * number, carrying the value so the caller can finish with it once it has
+ * replaced itself with its generic variant. It has no stack trace.
+ */
+public final class UnexpectedResult extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object result;
+
+    public UnexpectedResult(Object result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+}
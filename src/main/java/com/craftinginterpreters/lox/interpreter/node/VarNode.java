@@ -0,0 +1,26 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.lexer.Token;
+
+public class VarNode extends DeclarationNode {
+
+    private ExprNode initializer;
+
+    public VarNode(Token name, Globals globals, ExprNode initializer) {
+        super(name, globals);
+        this.initializer = adopt(initializer);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        define(frame, initializer != null ? initializer.execute(frame) : null);
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        initializer = (ExprNode) replacement;
+    }
+}
@@ -0,0 +1,32 @@
+package com.craftinginterpreters.lox.interpreter.node;
+
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+
+public class WhileNode extends StmtNode {
+
+    private ExprNode condition;
+    private final StmtNode body;
+
+    public WhileNode(ExprNode condition, StmtNode body) {
+        this.condition = adopt(condition);
+        this.body = adopt(body);
+    }
+
+    @Override
+    public Object execute(Environment frame) {
+        while (Interpreter.isTruthy(condition.execute(frame))) {
+            Object result = body.execute(frame);
+
+            if (result != NORMAL)
+                return result;
+        }
+
+        return NORMAL;
+    }
+
+    @Override
+    protected void replaceChild(Node child, Node replacement) {
+        condition = (ExprNode) replacement;
+    }
+}
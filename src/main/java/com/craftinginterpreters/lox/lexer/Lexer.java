@@ -1,162 +1,394 @@
 package com.craftinginterpreters.lox.lexer;
 
+import com.craftinginterpreters.lox.ErrorReporter;
 import com.craftinginterpreters.lox.Lox;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import static com.craftinginterpreters.lox.lexer.TokenType.*; // [static-import]
 
-public class Lexer {
-
-    private static final Map<String, TokenType> keywords;
-
-    static {
-        keywords = new HashMap<>();
-        keywords.put("and",    AND);
-        keywords.put("class",  CLASS);
-        keywords.put("else",   ELSE);
-        keywords.put("false",  FALSE);
-        keywords.put("for",    FOR);
-        keywords.put("fun",    FUN);
-        keywords.put("if",     IF);
-        keywords.put("nil",    NIL);
-        keywords.put("or",     OR);
-        keywords.put("print",  PRINT);
-        keywords.put("return", RETURN);
-        keywords.put("super",  SUPER);
-        keywords.put("this",   THIS);
-        keywords.put("true",   TRUE);
-        keywords.put("var",    VAR);
-        keywords.put("while",  WHILE);
-    }
-
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+/**
+ * Scans tokens on demand. Characters are read from the source into a window
+ * that only has to hold the token being scanned, so neither the source nor
+ * its tokens need to be in memory at once. A source that is already in
+ * memory as encoded bytes, such as a mapped file, is not decoded into the
+ * window but widened byte by byte, which is enough to scan everything but
+ * the text of string literals.
+ */
+public class Lexer implements TokenSource {
+
+    private static final int WINDOW_SIZE = 8192;
+
+    // A number with at most this many digits is below 2^53, so its digits
+    // convert to a double exactly.
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * The charsets that encode ASCII as single bytes below 0x80 and use
+     * only bytes above it for everything else, so that the lexer can scan
+     * their bytes directly.
+     */
+    private static final Set<Charset> BYTE_CHARSETS = Set.of(
+            StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8);
+
+    private final Readable source;
+    private final ErrorReporter reporter;
+    private final SymbolCache symbols = new SymbolCache();
+
+    // The characters read so far that are still needed: buffer[start] is
+    // the first character of the token being scanned, buffer[current] the
+    // next one to scan and buffer[limit] the first not read yet.
+    private char[] buffer;
+    private int limit = 0;
+    private boolean exhausted = false;
+
+    // When scanning bytes, the source the window is filled from, whose
+    // position is just past buffer[limit - 1], and the charset string
+    // literals are decoded with.
+    private final ByteBuffer bytes;
+    private final Charset charset;
 
     private int start = 0;
     private int current = 0;
-    private int line = 1;
+    private int line;
+
+    // The lexeme, literal value and symbol of the token just scanned, if
+    // its type has no fixed lexeme.
+    private String lexeme;
+    private Object value;
+    private Symbol symbol;
 
     public Lexer(String source) {
+        this(source, Lox.REPORTER);
+    }
+
+    public Lexer(String source, ErrorReporter reporter) {
+        this(CharBuffer.wrap(source), reporter);
+    }
+
+    /**
+     * Creates a lexer that reads {@code source}, such as a
+     * {@link java.io.Reader} or a {@link CharBuffer}, as it scans. Errors
+     * reading it are thrown as {@link UncheckedIOException}.
+     */
+    public Lexer(Readable source, ErrorReporter reporter) {
+        this(source, reporter, 1);
+    }
+
+    /**
+     * Creates a lexer for a part of a larger source, which starts on
+     * {@code line} of it.
+     */
+    public Lexer(Readable source, ErrorReporter reporter, int line) {
         this.source = source;
+        this.reporter = reporter;
+        this.line = line;
+        this.buffer = new char[WINDOW_SIZE];
+        this.bytes = null;
+        this.charset = null;
+    }
+
+    /**
+     * Creates a lexer that scans the bytes from 0 up to the limit of
+     * {@code source} without decoding them, other than the text of string
+     * literals. The charset must be one that {@link #canScanBytes} accepts.
+     */
+    public Lexer(ByteBuffer source, Charset charset, ErrorReporter reporter) {
+        this(source, charset, reporter, 1);
+    }
+
+    public Lexer(ByteBuffer source, Charset charset, ErrorReporter reporter, int line) {
+        if (!canScanBytes(charset))
+            throw new IllegalArgumentException("Can't scan " + charset + " as bytes.");
+
+        this.source = null;
+        this.reporter = reporter;
+        this.buffer = new char[WINDOW_SIZE];
+        this.bytes = source.duplicate().rewind();
+        this.charset = charset;
+        this.line = line;
+    }
+
+    public static boolean canScanBytes(Charset charset) {
+        return BYTE_CHARSETS.contains(charset);
+    }
+
+    /**
+     * Maps the file at {@code path} into memory, to scan with
+     * {@link #Lexer(ByteBuffer, Charset, ErrorReporter)}. The file must be a
+     * regular one; a pipe would map as empty.
+     *
+     * @throws IllegalArgumentException if the file is 2GB or larger.
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
     }
 
+    /**
+     * Scans the whole source.
+     */
     public List<Token> scanTokens() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.type() != EOF);
+
+        return tokens;
+    }
+
+    @Override
+    public Token nextToken() {
+        TokenType type = scan();
+
+        if (type.lexeme() != null)
+            return new Token(type, type.lexeme(), null, line, null);
+
+        return new Token(type, lexeme, value, line, symbol);
+    }
+
+    /**
+     * Scans the next token without creating a {@link Token} for it. If its
+     * type has no fixed lexeme, the rest of it is left for {@link #lexeme},
+     * {@link #value} and {@link #symbol}. Returns EOF at the end.
+     */
+    TokenType scan() {
         while (!isAtEnd()) {
             start = current;
-            scanToken();
+            TokenType type = scanToken();
+
+            if (type != null)
+                return type;
         }
 
-        tokens.add(new Token(EOF, "", null, line));
-        return tokens;
+        return EOF;
+    }
+
+    String lexeme() {
+        return lexeme;
     }
 
-    private void scanToken() {
+    Object value() {
+        return value;
+    }
+
+    Symbol symbol() {
+        return symbol;
+    }
+
+    /**
+     * The line the token just scanned ends on.
+     */
+    int line() {
+        return line;
+    }
+
+    /**
+     * Scans the token starting at {@code start}, or returns null if the
+     * characters there aren't one.
+     */
+    private TokenType scanToken() {
         char c = advance();
         switch (c) {
-            case '(': addToken(LEFT_PAREN); break;
-            case ')': addToken(RIGHT_PAREN); break;
-            case '{': addToken(LEFT_BRACE); break;
-            case '}': addToken(RIGHT_BRACE); break;
-            case ',': addToken(COMMA); break;
-            case '.': addToken(DOT); break;
-            case '-': addToken(MINUS); break;
-            case '+': addToken(PLUS); break;
-            case ';': addToken(SEMICOLON); break;
-            case '*': addToken(STAR); break;
+            case '(': return LEFT_PAREN;
+            case ')': return RIGHT_PAREN;
+            case '{': return LEFT_BRACE;
+            case '}': return RIGHT_BRACE;
+            case ',': return COMMA;
+            case '.': return DOT;
+            case '-': return MINUS;
+            case '+': return PLUS;
+            case ';': return SEMICOLON;
+            case '*': return STAR;
 
             case '!':
-                addToken(match('=') ? BANG_EQUAL : BANG);
-                break;
+                return match('=') ? BANG_EQUAL : BANG;
             case '=':
-                addToken(match('=') ? EQUAL_EQUAL : EQUAL);
-                break;
+                return match('=') ? EQUAL_EQUAL : EQUAL;
             case '<':
-                addToken(match('=') ? LESS_EQUAL : LESS);
-                break;
+                return match('=') ? LESS_EQUAL : LESS;
             case '>':
-                addToken(match('=') ? GREATER_EQUAL : GREATER);
-                break;
+                return match('=') ? GREATER_EQUAL : GREATER;
             case '/':
                 if (match('/')) {
                     while (peek() != '\n' && !isAtEnd()) advance();
-                } else {
-                    addToken(SLASH);
+                    return null;
                 }
-                break;
+
+                return SLASH;
 
             case ' ':
             case '\r':
             case '\t':
-                break;
+                return null;
 
             case '\n':
                 line++;
-                break;
+                return null;
 
-            case '"': string(); break;
+            case '"': return string();
 
             default:
-                if (isDigit(c)) {
-                    number();
-                } else if (isAlpha(c)) {
-                    identifier();
-                } else {
-                    Lox.error(line, "Unexpected character.");
+                if (isDigit(c))
+                    return number();
+
+                if (isAlpha(c))
+                    return identifier();
+
+                // Skip the continuation bytes of a UTF-8 encoded character.
+                if (charset == StandardCharsets.UTF_8) {
+                    while ((peek() & 0xC0) == 0x80)
+                        advance();
                 }
 
-                break;
+                reporter.error(line, "Unexpected character.");
+                return null;
         }
     }
 
-    private void identifier() {
+    private TokenType identifier() {
         while (isAlphaNumeric(peek())) advance();
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
+        TokenType type = keyword();
 
-        if (type == null)
-            type = IDENTIFIER;
+        if (type != IDENTIFIER)
+            return type;
 
-        addToken(type);
+        // Every occurrence of a name shares its symbol's string.
+        symbol = symbols.intern(buffer, start, current - start);
+        lexeme = symbol.getName();
+        value = null;
+        return IDENTIFIER;
     }
 
-    private void number() {
-        while (isDigit(peek()))
-            advance();
+    /**
+     * The type of the keyword between {@code start} and {@code current}, or
+     * {@link TokenType#IDENTIFIER} if it isn't one.
+     */
+    private TokenType keyword() {
+        switch (buffer[start]) {
+            case 'a': return keyword(AND);
+            case 'c': return keyword(CLASS);
+            case 'e': return keyword(ELSE);
+            case 'f':
+                if (current - start > 1) {
+                    switch (buffer[start + 1]) {
+                        case 'a': return keyword(FALSE);
+                        case 'o': return keyword(FOR);
+                        case 'u': return keyword(FUN);
+                    }
+                }
+                break;
+            case 'i': return keyword(IF);
+            case 'n': return keyword(NIL);
+            case 'o': return keyword(OR);
+            case 'p': return keyword(PRINT);
+            case 'r': return keyword(RETURN);
+            case 's': return keyword(SUPER);
+            case 't':
+                if (current - start > 1) {
+                    switch (buffer[start + 1]) {
+                        case 'h': return keyword(THIS);
+                        case 'r': return keyword(TRUE);
+                    }
+                }
+                break;
+            case 'v': return keyword(VAR);
+            case 'w': return keyword(WHILE);
+        }
+
+        return IDENTIFIER;
+    }
+
+    private TokenType keyword(TokenType type) {
+        String keyword = type.lexeme();
+
+        if (current - start != keyword.length())
+            return IDENTIFIER;
+
+        for (int i = 0; i < keyword.length(); i++) {
+            if (buffer[start + i] != keyword.charAt(i))
+                return IDENTIFIER;
+        }
+
+        return type;
+    }
+
+    private TokenType number() {
+        // The digits are also accumulated as an integer, which is exact if
+        // there aren't too many of them.
+        long digits = buffer[start] - '0';
+        int count = 1;
+        int scale = 0;
+
+        while (isDigit(peek())) {
+            digits = 10 * digits + (advance() - '0');
+            count++;
+        }
 
         if (peek() == '.' && isDigit(peekNext())) {
             advance();
 
-            while (isDigit(peek()))
-                advance();
+            while (isDigit(peek())) {
+                digits = 10 * digits + (advance() - '0');
+                count++;
+                scale++;
+            }
         }
 
-        addToken(NUMBER, Double.parseDouble(source.substring(start, current)));
+        lexeme = text(start, current);
+
+        // Dividing an exact integer by an exact power of ten rounds once,
+        // so it gives the same double as parsing the text would.
+        value = count <= MAX_EXACT_DIGITS
+                ? digits / POWERS_OF_TEN[scale]
+                : Double.parseDouble(lexeme);
+        symbol = null;
+        return NUMBER;
     }
 
-    private void string() {
+    private TokenType string() {
         while (peek() != '"' && !isAtEnd()) {
             if (peek() == '\n') line++;
             advance();
         }
 
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
-            return;
+            reporter.error(line, "Unterminated string.");
+            return null;
         }
 
         advance();
 
         // Trim the surrounding quotes.
-        String value = source.substring(start + 1, current - 1);
-        addToken(STRING, value);
+        value = literal(start + 1, current - 1);
+        lexeme = literal(start, current);
+        symbol = null;
+        return STRING;
     }
     //< string
 //> match
     private boolean match(char expected) {
         if (isAtEnd()) return false;
-        if (source.charAt(current) != expected) return false;
+        if (buffer[current] != expected) return false;
 
         current++;
         return true;
@@ -165,13 +397,13 @@ public class Lexer {
 //> peek
     private char peek() {
         if (isAtEnd()) return '\0';
-        return source.charAt(current);
+        return buffer[current];
     }
     //< peek
 //> peek-next
     private char peekNext() {
-        if (current + 1 >= source.length()) return '\0';
-        return source.charAt(current + 1);
+        if (current + 1 >= limit && !fill(2)) return '\0';
+        return buffer[current + 1];
     } // [peek-next]
     //< peek-next
 //> is-alpha
@@ -192,21 +424,83 @@ public class Lexer {
     //< is-digit
 //> is-at-end
     private boolean isAtEnd() {
-        return current >= source.length();
+        return current >= limit && !fill(1);
     }
     //< is-at-end
 //> advance-and-add-token
     private char advance() {
-        return source.charAt(current++);
+        if (current >= limit)
+            fill(1);
+
+        return buffer[current++];
+    }
+
+    private String text(int from, int to) {
+        return new String(buffer, from, to - from);
     }
 
-    private void addToken(TokenType type) {
-        addToken(type, null);
+    /**
+     * The text of a string literal, which is decoded if it was scanned as
+     * bytes.
+     */
+    private String literal(int from, int to) {
+        if (bytes == null)
+            return text(from, to);
+
+        byte[] text = new byte[to - from];
+        bytes.get(bytes.position() - limit + from, text);
+        return new String(text, charset);
     }
 
-    private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+    /**
+     * Reads more of the source until {@code count} characters from
+     * {@code current} on are available, returning false if the source ends
+     * first. Characters before the token being scanned are dropped to make
+     * room, and the window grows if the token doesn't fit.
+     */
+    private boolean fill(int count) {
+        while (limit - current < count) {
+            if (exhausted)
+                return false;
+
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                current -= start;
+                start = 0;
+            } else if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            int read = bytes != null ? widen() : read();
+
+            if (read < 0)
+                exhausted = true;
+            else
+                limit += read;
+        }
+
+        return true;
+    }
+
+    private int read() {
+        try {
+            return source.read(CharBuffer.wrap(buffer, limit, buffer.length - limit));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int widen() {
+        int count = Math.min(bytes.remaining(), buffer.length - limit);
+
+        if (count == 0)
+            return -1;
+
+        for (int i = limit; i < limit + count; i++)
+            buffer[i] = (char) (bytes.get() & 0xFF);
+
+        return count;
     }
 //< advance-and-add-token
 }
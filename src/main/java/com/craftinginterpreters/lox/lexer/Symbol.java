@@ -0,0 +1,91 @@
+package com.craftinginterpreters.lox.lexer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An interned identifier. There is one symbol per distinct name, so symbols
+ * compare by identity, and each has a small id, assigned in the order names
+ * are first seen, that tables of names can hash on directly.
+ * <p>
+ * The table of symbols only holds them weakly, so names that embedders
+ * bind or scripts use once don't stay interned after nothing refers to
+ * them. A name interned again after that gets a new symbol.
+ */
+public final class Symbol {
+
+    private static final Map<String, Entry> symbols = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Symbol> cleared = new ReferenceQueue<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final String name;
+    private final int id;
+
+    private Symbol(String name) {
+        this.name = name;
+        this.id = nextId.getAndIncrement();
+    }
+
+    public static Symbol intern(String name) {
+        Entry entry = symbols.get(name);
+        Symbol symbol = entry == null ? null : entry.get();
+
+        if (symbol != null)
+            return symbol;
+
+        expungeCleared();
+
+        Symbol[] interned = new Symbol[1];
+
+        symbols.compute(name, (key, existing) -> {
+            interned[0] = existing == null ? null : existing.get();
+
+            if (interned[0] != null)
+                return existing;
+
+            interned[0] = new Symbol(key);
+            return new Entry(interned[0]);
+        });
+
+        return interned[0];
+    }
+
+    /**
+     * Drops the entries of symbols that have been collected.
+     */
+    private static void expungeCleared() {
+        Reference<? extends Symbol> reference;
+
+        while ((reference = cleared.poll()) != null) {
+            Entry entry = (Entry) reference;
+            symbols.remove(entry.name, entry);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static final class Entry extends WeakReference<Symbol> {
+
+        private final String name;
+
+        private Entry(Symbol symbol) {
+            super(symbol, cleared);
+            this.name = symbol.name;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.craftinginterpreters.lox.lexer;
+
+/**
+ * The symbols a lexer has seen, looked up by the characters of a name in
+ * its window. Only a name's first occurrence has to be copied into a string
+ * and interned; later ones are matched in place.
+ */
+final class SymbolCache {
+
+    private Symbol[] symbols = new Symbol[256];
+    private int[] hashes = new int[256];
+    private int size;
+
+    Symbol intern(char[] chars, int from, int length) {
+        int hash = 0;
+
+        for (int i = from; i < from + length; i++)
+            hash = 31 * hash + chars[i];
+
+        int mask = symbols.length - 1;
+        int index = mix(hash) & mask;
+
+        for (Symbol symbol; (symbol = symbols[index]) != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && matches(symbol.getName(), chars, from, length))
+                return symbol;
+        }
+
+        Symbol symbol = Symbol.intern(new String(chars, from, length));
+        symbols[index] = symbol;
+        hashes[index] = hash;
+
+        if (2 * ++size > symbols.length)
+            grow();
+
+        return symbol;
+    }
+
+    private static boolean matches(String name, char[] chars, int from, int length) {
+        if (name.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[from + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    // Spreads the high bits of a hash into the low ones the mask keeps.
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        Symbol[] oldSymbols = symbols;
+        int[] oldHashes = hashes;
+
+        symbols = new Symbol[oldSymbols.length * 2];
+        hashes = new int[oldSymbols.length * 2];
+        int mask = symbols.length - 1;
+
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] == null)
+                continue;
+
+            int index = mix(oldHashes[i]) & mask;
+
+            while (symbols[index] != null)
+                index = (index + 1) & mask;
+
+            symbols[index] = oldSymbols[i];
+            hashes[index] = oldHashes[i];
+        }
+    }
+}
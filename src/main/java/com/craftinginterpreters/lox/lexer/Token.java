@@ -1,6 +1,14 @@
 package com.craftinginterpreters.lox.lexer;
 
-public record Token(TokenType type, String lexeme, Object literal, int line) {
+/**
+ * @param symbol the interned name of an {@link TokenType#IDENTIFIER}, or null
+ *               for other tokens.
+ */
+public record Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol) {
+
+    public Token(TokenType type, String lexeme, Object literal, int line) {
+        this(type, lexeme, literal, line, type == TokenType.IDENTIFIER ? Symbol.intern(lexeme) : null);
+    }
 
     public String toString() {
         return type + " " + lexeme + " " + literal;
@@ -0,0 +1,32 @@
+package com.craftinginterpreters.lox.lexer;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hands out a program's tokens one at a time. After the last one it
+ * returns an {@link TokenType#EOF} token, and keeps returning it.
+ */
+public interface TokenSource {
+
+    Token nextToken();
+
+    /**
+     * A source over tokens that were already scanned, ending with EOF.
+     */
+    static TokenSource of(List<Token> tokens) {
+        Iterator<Token> iterator = tokens.iterator();
+
+        return new TokenSource() {
+            private Token last;
+
+            @Override
+            public Token nextToken() {
+                if (iterator.hasNext())
+                    last = iterator.next();
+
+                return last;
+            }
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.craftinginterpreters.lox.lexer;
+
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+import java.util.Arrays;
+
+/**
+ * A scanned program's tokens, kept in parallel arrays rather than as one
+ * {@link Token} object each, so that holding the tokens of a large program
+ * costs a few bytes per token and gives the GC nothing to trace.
+ * <p>
+ * Each token is its type's ordinal and, unless it has its type's fixed
+ * lexeme, the index of its lexeme and literal in a table of constants, in
+ * which all the occurrences of a name share one entry. Lines are kept once
+ * per line rather than once per token, as the index of the first token on
+ * each. A {@link com.craftinginterpreters.lox.parser.TokenEnumerator} reads
+ * the types by index and only asks for a {@link Token} when it keeps one.
+ */
+public final class TokenStream {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Marks a token that has its type's fixed lexeme and no literal.
+    private static final int FIXED = -1;
+
+    private final byte[] types;
+    private final int[] constants;
+    private final int size;
+
+    // The lexemes, literals and symbols of the tokens that don't have
+    // fixed lexemes.
+    private final String[] lexemes;
+    private final Object[] literals;
+    private final Symbol[] symbols;
+
+    // The tokens from lineStarts[i] up to lineStarts[i + 1] are on lines[i].
+    private final int[] lineStarts;
+    private final int[] lines;
+    private final int lineCount;
+
+    // The builder's arrays are taken as they are, with room to spare, since
+    // a stream is usually only kept while it is parsed.
+    private TokenStream(Builder builder) {
+        this.types = builder.types;
+        this.constants = builder.constants;
+        this.size = builder.size;
+        this.lexemes = builder.lexemes;
+        this.literals = builder.literals;
+        this.symbols = builder.symbols;
+        this.lineStarts = builder.lineStarts;
+        this.lines = builder.lines;
+        this.lineCount = builder.lineCount;
+    }
+
+    /**
+     * Reads all of {@code source}'s tokens, up to and including the first
+     * {@link TokenType#EOF}.
+     */
+    public static TokenStream scan(TokenSource source) {
+        Builder builder = new Builder();
+        Token token;
+
+        do {
+            token = source.nextToken();
+
+            if (isFixed(token))
+                builder.add(token.type(), token.line());
+            else
+                builder.add(token.type(), token.lexeme(), token.literal(), token.symbol(), token.line());
+        } while (token.type() != TokenType.EOF);
+
+        return new TokenStream(builder);
+    }
+
+    /**
+     * Scans all of {@code lexer}'s tokens, up to and including the first
+     * {@link TokenType#EOF}, without creating a {@link Token} for any.
+     */
+    public static TokenStream scan(Lexer lexer) {
+        Builder builder = new Builder();
+        TokenType type;
+
+        do {
+            type = lexer.scan();
+
+            if (type.lexeme() != null)
+                builder.add(type, lexer.line());
+            else
+                builder.add(type, lexer.lexeme(), lexer.value(), lexer.symbol(), lexer.line());
+        } while (type != TokenType.EOF);
+
+        return new TokenStream(builder);
+    }
+
+    private static boolean isFixed(Token token) {
+        return token.literal() == null
+                && token.symbol() == null
+                && token.lexeme().equals(token.type().lexeme());
+    }
+
+    /**
+     * The number of tokens, including the final EOF.
+     */
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int line(int index) {
+        return lines[lineRun(index)];
+    }
+
+    /**
+     * The literal value of the token at {@code index}, or null if it has
+     * none.
+     */
+    public Object literal(int index) {
+        int constant = constants[index];
+        return constant == FIXED ? null : literals[constant];
+    }
+
+    /**
+     * Creates the {@link Token} at {@code index}.
+     */
+    public Token token(int index) {
+        TokenType type = TYPES[types[index]];
+        int line = lines[lineRun(index)];
+        int constant = constants[index];
+
+        if (constant == FIXED)
+            return new Token(type, type.lexeme(), null, line, null);
+
+        return new Token(type, lexemes[constant], literals[constant], line, symbols[constant]);
+    }
+
+    /**
+     * The index of the run of tokens on the same line that includes the
+     * token at {@code index}.
+     */
+    private int lineRun(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        int run = Arrays.binarySearch(lineStarts, 0, lineCount, index);
+        return run >= 0 ? run : -run - 2;
+    }
+
+    private static final class Builder {
+
+        private byte[] types = new byte[1024];
+        private int[] constants = new int[1024];
+        private int size;
+
+        // Every occurrence of a name shares its constant; numbers and
+        // strings get one each.
+        private final SymbolMap<Integer> names = new SymbolMap<>();
+        private String[] lexemes = new String[64];
+        private Object[] literals = new Object[64];
+        private Symbol[] symbols = new Symbol[64];
+        private int constantCount;
+
+        private int[] lineStarts = new int[256];
+        private int[] lines = new int[256];
+        private int lineCount;
+
+        /**
+         * Adds a token that has its type's fixed lexeme.
+         */
+        private void add(TokenType type, int line) {
+            add(type, FIXED, line);
+        }
+
+        private void add(TokenType type, String lexeme, Object literal, Symbol symbol, int line) {
+            int constant;
+
+            if (symbol != null) {
+                Integer index = names.get(symbol);
+
+                if (index == null) {
+                    index = constant(lexeme, null, symbol);
+                    names.put(symbol, index);
+                }
+
+                constant = index;
+            } else {
+                constant = constant(lexeme, literal, null);
+            }
+
+            add(type, constant, line);
+        }
+
+        private void add(TokenType type, int constant, int line) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                constants = Arrays.copyOf(constants, size * 2);
+            }
+
+            if (lineCount == 0 || lines[lineCount - 1] != line) {
+                if (lineCount == lines.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                    lines = Arrays.copyOf(lines, lineCount * 2);
+                }
+
+                lineStarts[lineCount] = size;
+                lines[lineCount++] = line;
+            }
+
+            types[size] = (byte) type.ordinal();
+            constants[size++] = constant;
+        }
+
+        private int constant(String lexeme, Object literal, Symbol symbol) {
+            if (constantCount == lexemes.length) {
+                lexemes = Arrays.copyOf(lexemes, constantCount * 2);
+                literals = Arrays.copyOf(literals, constantCount * 2);
+                symbols = Arrays.copyOf(symbols, constantCount * 2);
+            }
+
+            lexemes[constantCount] = lexeme;
+            literals[constantCount] = literal;
+            symbols[constantCount] = symbol;
+            return constantCount++;
+        }
+    }
+}
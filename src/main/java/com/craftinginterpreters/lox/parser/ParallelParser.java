@@ -0,0 +1,180 @@
+package com.craftinginterpreters.lox.parser;
+
+import com.craftinginterpreters.lox.ErrorReporter;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.lexer.TokenStream;
+import com.craftinginterpreters.lox.parser.SourceSplitter.Chunk;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scans and parses a large source in parts on the common
+ * {@link ForkJoinPool}. The source is split where top-level declarations
+ * begin, by {@link SourceSplitter}, each part is parsed on its own from the
+ * line it starts on, and their statements are joined in order.
+ * <p>
+ * The parts only report whether they have an error. If one does, the
+ * source is parsed again as a whole, so a program with errors has them
+ * reported exactly as {@link Parser} alone would.
+ */
+public final class ParallelParser {
+
+    // Smaller sources are parsed on the calling thread, since splitting
+    // them would cost more than it saves.
+    private static final int MIN_PARALLEL_LENGTH = 1 << 20;
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    // Splitting into more parts than threads lets the threads that finish
+    // their parts first take on others.
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Creates a parser for the part of the source from {@code start} up to
+     * {@code end}, which starts on {@code line}.
+     */
+    private interface ParserFactory {
+        Parser create(int start, int end, int line, ErrorReporter reporter);
+    }
+
+    private record Part(Collection<Stmt> statements, boolean hadError) { }
+
+    private ParallelParser() { }
+
+    /**
+     * Parses a source that is in memory already, so that its tokens can be
+     * too: they are scanned into a {@link TokenStream} before parsing, which
+     * spares a {@link com.craftinginterpreters.lox.lexer.Token} for every
+     * token the tree doesn't keep.
+     */
+    public static Collection<Stmt> parse(String source, ErrorReporter reporter) {
+        return parse(source, (start, end, line, errors) -> {
+            TokenStream tokens = TokenStream.scan(new Lexer(CharBuffer.wrap(source, start, end), errors, line));
+            return new Parser(tokens, errors);
+        }, reporter);
+    }
+
+    /**
+     * Parses the bytes from 0 up to the limit of {@code source}, which are
+     * scanned as {@link Lexer#Lexer(ByteBuffer, Charset, ErrorReporter)}
+     * does. The tokens are scanned as they are parsed, so that a large file
+     * never has all of them in memory.
+     */
+    public static Collection<Stmt> parse(ByteBuffer source, Charset charset, ErrorReporter reporter) {
+        return parse(new ByteChars(source), (start, end, line, errors) -> {
+            Lexer lexer = new Lexer(source.slice(start, end - start), charset, errors, line);
+            return new Parser(lexer, errors);
+        }, reporter);
+    }
+
+    private static Collection<Stmt> parse(CharSequence source, ParserFactory parsers, ErrorReporter reporter) {
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        if (source.length() < MIN_PARALLEL_LENGTH || threads < 2)
+            return parsers.create(0, source.length(), 1, reporter).parse();
+
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, source.length() / (threads * CHUNKS_PER_THREAD));
+        List<Chunk> chunks = SourceSplitter.split(source, chunkSize);
+        Part[] parts = new Part[chunks.size()];
+
+        ForkJoinPool.commonPool().invoke(new ParseTask(chunks, parsers, parts, 0, parts.length));
+
+        List<Stmt> statements = new ArrayList<>();
+
+        for (Part part : parts) {
+            if (part.hadError())
+                return parsers.create(0, source.length(), 1, reporter).parse();
+
+            statements.addAll(part.statements());
+        }
+
+        return statements;
+    }
+
+    /**
+     * Parses the chunks from {@code from} up to {@code to}, forking to parse
+     * each half of them until there is one.
+     */
+    private static final class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Chunk> chunks;
+        private final ParserFactory parsers;
+        private final Part[] parts;
+        private final int from;
+        private final int to;
+
+        private ParseTask(List<Chunk> chunks, ParserFactory parsers, Part[] parts, int from, int to) {
+            this.chunks = chunks;
+            this.parsers = parsers;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(chunks, parsers, parts, from, middle),
+                          new ParseTask(chunks, parsers, parts, middle, to));
+                return;
+            }
+
+            Chunk chunk = chunks.get(from);
+            ErrorFlag errors = new ErrorFlag();
+            Parser parser = parsers.create(chunk.start(), chunk.end(), chunk.line(), errors);
+
+            parts[from] = new Part(parser.parse(), errors.hadError);
+        }
+    }
+
+    /**
+     * Notes that a part has an error, without reporting it.
+     */
+    private static final class ErrorFlag implements ErrorReporter {
+
+        private boolean hadError;
+
+        @Override
+        public void reportError(String message) {
+            hadError = true;
+        }
+
+        @Override
+        public void reportRuntimeError(String message) {
+            hadError = true;
+        }
+    }
+
+    /**
+     * The bytes of a buffer as characters, one per byte, for the splitter
+     * to scan as the lexer does.
+     */
+    private record ByteChars(ByteBuffer bytes) implements CharSequence {
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteChars(bytes.slice(start, end - start));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.craftinginterpreters.lox.parser;
 
+import com.craftinginterpreters.lox.ErrorReporter;
 import com.craftinginterpreters.lox.ast.Expr;
 import com.craftinginterpreters.lox.ast.Stmt;
 import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenSource;
+import com.craftinginterpreters.lox.lexer.TokenStream;
 
 import java.util.*;
 
@@ -10,12 +13,26 @@ import static com.craftinginterpreters.lox.lexer.TokenType.*;
 
 public class Parser extends TokenEnumerator {
 
-    private static class ParseError extends RuntimeException { }
-
     public Parser(List<Token> tokens) {
         super(tokens);
     }
 
+    public Parser(List<Token> tokens, ErrorReporter reporter) {
+        super(tokens, reporter);
+    }
+
+    public Parser(TokenStream tokens, ErrorReporter reporter) {
+        super(tokens, reporter);
+    }
+
+    /**
+     * Creates a parser that scans as it parses, such as one reading from a
+     * {@link com.craftinginterpreters.lox.lexer.Lexer}.
+     */
+    public Parser(TokenSource source, ErrorReporter reporter) {
+        super(source, reporter);
+    }
+
     public Collection<Stmt> parse() {
         List<Stmt> statements = new ArrayList<>();
 
@@ -53,11 +70,11 @@ public class Parser extends TokenEnumerator {
         Expr.Variable superclass = null;
 
         if (this.match(LESS)) {
-            this.consume(IDENTIFIER, "Expect superclass name.");
+            this.expect(IDENTIFIER, "Expect superclass name.");
             superclass = new Expr.Variable(this.previous());
         }
 
-        this.consume(LEFT_BRACE, "Expect '{' before class body.");
+        this.expect(LEFT_BRACE, "Expect '{' before class body.");
 
         // TODO: add a method/func keyword check somewhere here
         List<Stmt.Function> methods = new ArrayList<>();
@@ -65,7 +82,7 @@ public class Parser extends TokenEnumerator {
             methods.add(this.function("method"));
         }
 
-        this.consume(RIGHT_BRACE, "Expect '}' after class body.");
+        this.expect(RIGHT_BRACE, "Expect '}' after class body.");
         return new Stmt.Class(name, superclass, methods);
     }
 
@@ -92,9 +109,9 @@ public class Parser extends TokenEnumerator {
     }
 
     private Stmt forStatement() {
-        this.consume(LEFT_PAREN, "Expect '(' after 'for'.");
+        this.expect(LEFT_PAREN, "Expect '(' after 'for'.");
 
-        Stmt initializer = this.match((token) -> switch (token.type()) {
+        Stmt initializer = this.match((type) -> switch (type) {
             case SEMICOLON -> null;
             case VAR -> this.varDeclaration();
             default -> this.expressionStatement();
@@ -105,14 +122,14 @@ public class Parser extends TokenEnumerator {
             condition = this.expression();
         }
 
-        this.consume(SEMICOLON, "Expect ';' after loop condition.");
+        this.expect(SEMICOLON, "Expect ';' after loop condition.");
 
         Expr increment = null;
         if (!this.check(RIGHT_PAREN)) {
             increment = this.expression();
         }
 
-        this.consume(RIGHT_PAREN, "Expect ')' after for clauses.");
+        this.expect(RIGHT_PAREN, "Expect ')' after for clauses.");
         Stmt body = this.statement();
 
         if (increment != null) {
@@ -132,10 +149,10 @@ public class Parser extends TokenEnumerator {
     }
 
     private Stmt ifStatement() {
-        this.consume(LEFT_PAREN, "Expect '(' after 'if'.");
+        this.expect(LEFT_PAREN, "Expect '(' after 'if'.");
         Expr condition = expression();
 
-        this.consume(RIGHT_PAREN, "Expect ')' after if condition.");
+        this.expect(RIGHT_PAREN, "Expect ')' after if condition.");
 
         Stmt thenBranch = this.statement();
         Stmt elseBranch = null;
@@ -148,7 +165,7 @@ public class Parser extends TokenEnumerator {
 
     private Stmt printStatement() {
         Expr value = this.expression();
-        this.consume(SEMICOLON, "Expect ';' after value.");
+        this.expect(SEMICOLON, "Expect ';' after value.");
 
         return new Stmt.Print(value);
     }
@@ -161,7 +178,7 @@ public class Parser extends TokenEnumerator {
             value = this.expression();
         }
 
-        this.consume(SEMICOLON, "Expect ';' after return value.");
+        this.expect(SEMICOLON, "Expect ';' after return value.");
         return new Stmt.Return(keyword, value);
     }
 
@@ -173,15 +190,15 @@ public class Parser extends TokenEnumerator {
             initializer = this.expression();
         }
 
-        this.consume(SEMICOLON, "Expect ';' after variable declaration.");
+        this.expect(SEMICOLON, "Expect ';' after variable declaration.");
         return new Stmt.Var(name, initializer);
     }
 
     private Stmt whileStatement() {
-        this.consume(LEFT_PAREN, "Expect '(' after 'while'.");
+        this.expect(LEFT_PAREN, "Expect '(' after 'while'.");
         Expr condition = this.expression();
 
-        this.consume(RIGHT_PAREN, "Expect ')' after condition.");
+        this.expect(RIGHT_PAREN, "Expect ')' after condition.");
         Stmt body = this.statement();
 
         return new Stmt.While(condition, body);
@@ -189,7 +206,7 @@ public class Parser extends TokenEnumerator {
 
     private Stmt expressionStatement() {
         Expr expr = this.expression();
-        this.consume(SEMICOLON, "Expect ';' after expression.");
+        this.expect(SEMICOLON, "Expect ';' after expression.");
 
         return new Stmt.Expression(expr);
     }
@@ -197,9 +214,9 @@ public class Parser extends TokenEnumerator {
     // TODO: replace `String kind` with an enum or even a bool
     private Stmt.Function function(String kind) {
         Token name = this.consume(IDENTIFIER, "Expect " + kind + " name.");
-        this.consume(LEFT_PAREN, "Expect '(' after " + kind + " name.");
+        this.expect(LEFT_PAREN, "Expect '(' after " + kind + " name.");
 
-        Set<Token> parameters = new HashSet<>();
+        List<Token> parameters = new ArrayList<>();
 
         if (!this.check(RIGHT_PAREN)) {
             do {
@@ -211,8 +228,8 @@ public class Parser extends TokenEnumerator {
             } while (this.match(COMMA));
         }
 
-        this.consume(RIGHT_PAREN, "Expect ')' after parameters.");
-        this.consume(LEFT_BRACE, "Expect '{' before " + kind + " body.");
+        this.expect(RIGHT_PAREN, "Expect ')' after parameters.");
+        this.expect(LEFT_BRACE, "Expect '{' before " + kind + " body.");
 
         return new Stmt.Function(name, parameters, block());
     }
@@ -224,7 +241,7 @@ public class Parser extends TokenEnumerator {
             statements.add(this.declaration());
         }
 
-        this.consume(RIGHT_BRACE, "Expect '}' after block.");
+        this.expect(RIGHT_BRACE, "Expect '}' after block.");
         return statements;
     }
 
@@ -377,26 +394,26 @@ public class Parser extends TokenEnumerator {
     }
 
     private Expr primary() {
-        return this.match(token -> switch (token.type()) {
+        return this.match(type -> switch (type) {
             case FALSE -> new Expr.Literal(false);
             case TRUE -> new Expr.Literal(true);
             case NIL -> new Expr.Literal(null);
 
-            case NUMBER, STRING -> new Expr.Literal(this.previous().literal());
+            case NUMBER, STRING -> new Expr.Literal(this.previousLiteral());
 
             case THIS -> new Expr.This(this.previous());
             case IDENTIFIER -> new Expr.Variable(this.previous());
 
             case SUPER -> {
                 Token keyword = this.previous();
-                this.consume(DOT, "Expect '.' after 'super'.");
+                this.expect(DOT, "Expect '.' after 'super'.");
 
                 yield new Expr.Super(keyword, this.consume(IDENTIFIER, "Expect superclass method name."));
             }
 
             case LEFT_PAREN -> {
                 Expr expr = this.expression();
-                this.consume(RIGHT_PAREN, "Expect ')' after expression.");
+                this.expect(RIGHT_PAREN, "Expect ')' after expression.");
 
                 yield new Expr.Grouping(expr);
             }
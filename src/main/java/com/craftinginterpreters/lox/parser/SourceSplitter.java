@@ -0,0 +1,112 @@
+package com.craftinginterpreters.lox.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a source into parts that each hold whole top-level declarations,
+ * so that they can be scanned and parsed separately. Rather than scanning
+ * tokens, it only tracks what it needs to find the places where a
+ * declaration begins: whether it is in a string or comment, how deeply
+ * braces and parentheses are nested, and the last character that wasn't
+ * whitespace or part of a comment.
+ */
+final class SourceSplitter {
+
+    /**
+     * The source from {@code start} up to {@code end}, whose first
+     * character is on {@code line}.
+     */
+    record Chunk(int start, int end, int line) { }
+
+    private SourceSplitter() { }
+
+    /**
+     * Splits {@code source} into parts of at least {@code chunkSize}
+     * characters where possible. A part ends where, outside any braces or
+     * parentheses, a {@code class}, {@code fun} or {@code var} follows a
+     * {@code ;} or {@code }}: no statement can continue past that point,
+     * so parsing the parts separately gives the same statements as parsing
+     * the whole source, unless it has an error.
+     */
+    static List<Chunk> split(CharSequence source, int chunkSize) {
+        List<Chunk> chunks = new ArrayList<>();
+        int length = source.length();
+
+        int chunkStart = 0;
+        int chunkLine = 1;
+        int line = 1;
+        int depth = 0;
+        char last = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+
+            switch (c) {
+                case '\n' -> {
+                    line++;
+                    continue;
+                }
+                case ' ', '\r', '\t' -> {
+                    continue;
+                }
+                case '"' -> {
+                    // An unterminated string runs to the end of the source.
+                    for (i++; i < length && source.charAt(i) != '"'; i++) {
+                        if (source.charAt(i) == '\n')
+                            line++;
+                    }
+                }
+                case '/' -> {
+                    if (i + 1 < length && source.charAt(i + 1) == '/') {
+                        while (i + 1 < length && source.charAt(i + 1) != '\n')
+                            i++;
+
+                        continue;
+                    }
+                }
+                case '{', '(' -> depth++;
+                case '}', ')' -> depth--;
+                default -> {
+                    if (depth == 0
+                            && (last == ';' || last == '}')
+                            && i - chunkStart >= chunkSize
+                            && startsDeclaration(source, i)) {
+                        chunks.add(new Chunk(chunkStart, i, chunkLine));
+                        chunkStart = i;
+                        chunkLine = line;
+                    }
+                }
+            }
+
+            last = c;
+        }
+
+        chunks.add(new Chunk(chunkStart, length, chunkLine));
+        return chunks;
+    }
+
+    private static boolean startsDeclaration(CharSequence source, int index) {
+        return startsWord(source, index, "class")
+                || startsWord(source, index, "fun")
+                || startsWord(source, index, "var");
+    }
+
+    private static boolean startsWord(CharSequence source, int index, String word) {
+        int end = index + word.length();
+
+        if (end > source.length())
+            return false;
+
+        for (int i = 0; i < word.length(); i++) {
+            if (source.charAt(index + i) != word.charAt(i))
+                return false;
+        }
+
+        if (end == source.length())
+            return true;
+
+        char next = source.charAt(end);
+        return !(next >= 'a' && next <= 'z' || next >= 'A' && next <= 'Z' || next >= '0' && next <= '9' || next == '_');
+    }
+}
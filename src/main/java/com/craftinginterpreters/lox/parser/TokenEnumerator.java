@@ -1,7 +1,10 @@
 package com.craftinginterpreters.lox.parser;
 
+import com.craftinginterpreters.lox.ErrorReporter;
 import com.craftinginterpreters.lox.Lox;
 import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenSource;
+import com.craftinginterpreters.lox.lexer.TokenStream;
 import com.craftinginterpreters.lox.lexer.TokenType;
 
 import java.util.List;
@@ -10,13 +13,49 @@ import java.util.function.Function;
 import static com.craftinginterpreters.lox.lexer.TokenType.EOF;
 import static com.craftinginterpreters.lox.lexer.TokenType.SEMICOLON;
 
+/**
+ * Reads tokens as the parser consumes them. From a {@link TokenSource} they
+ * are pulled one at a time, and only the token just consumed and the one
+ * after it are kept, which is all the lookahead the grammar needs. From a
+ * {@link TokenStream} they are read by index, and a {@link Token} is only
+ * created for those the parser keeps in the tree.
+ */
 public class TokenEnumerator {
 
-    protected final List<Token> tokens;
-    private int current = 0;
+    private final TokenSource source;
+    private final TokenStream stream;
+    private final ErrorReporter reporter;
+
+    // When reading a source, the tokens themselves; when reading a stream,
+    // the index of the current one.
+    private Token previous;
+    private Token current;
+    private int index;
+
+    private TokenType previousType;
+    private TokenType currentType;
 
     public TokenEnumerator(List<Token> tokens) {
-        this.tokens = tokens;
+        this(tokens, Lox.REPORTER);
+    }
+
+    public TokenEnumerator(List<Token> tokens, ErrorReporter reporter) {
+        this(TokenSource.of(tokens), reporter);
+    }
+
+    public TokenEnumerator(TokenStream stream, ErrorReporter reporter) {
+        this.source = null;
+        this.stream = stream;
+        this.reporter = reporter;
+        this.currentType = stream.type(0);
+    }
+
+    public TokenEnumerator(TokenSource source, ErrorReporter reporter) {
+        this.source = source;
+        this.stream = null;
+        this.reporter = reporter;
+        this.current = source.nextToken();
+        this.currentType = current.type();
     }
 
     protected boolean match(TokenType... types) {
@@ -30,54 +69,84 @@ public class TokenEnumerator {
         return false;
     }
 
-    protected <R> R match(Function<Token, R> consumer, TokenType... types) {
-        Token token = this.peek();
+    protected <R> R match(Function<TokenType, R> consumer, TokenType... types) {
+        TokenType type = this.currentType;
         this.match(types);
 
-        return consumer.apply(token);
+        return consumer.apply(type);
     }
 
     protected Token consume(TokenType type, String message) {
-        if (this.check(type))
-            return this.advance();
+        this.expect(type, message);
+        return this.previous();
+    }
+
+    /**
+     * Consumes a token of {@code type} the parser doesn't keep.
+     */
+    protected void expect(TokenType type, String message) {
+        if (!this.check(type))
+            throw error(message);
 
-        throw error(message);
+        this.advance();
     }
 
     protected boolean check(TokenType type) {
         if (this.isAtEnd())
             return false;
 
-        return this.peek().type() == type;
+        return this.currentType == type;
     }
 
-    protected Token advance() {
-        if (!this.isAtEnd())
-            this.current++;
+    protected void advance() {
+        if (this.isAtEnd())
+            return;
 
-        return this.previous();
+        this.previousType = this.currentType;
+
+        if (this.stream != null) {
+            this.currentType = this.stream.type(++this.index);
+        } else {
+            this.previous = this.current;
+            this.current = this.source.nextToken();
+            this.currentType = this.current.type();
+        }
     }
 
     protected boolean isAtEnd() {
-        return this.peek().type() == EOF;
+        return this.currentType == EOF;
     }
 
     protected Token peek() {
-        return this.tokens.get(this.current);
+        return this.stream != null ? this.stream.token(this.index) : this.current;
     }
 
     protected Token previous() {
-        return this.tokens.get(this.current - 1);
+        if (this.stream == null)
+            return this.previous;
+
+        return this.index > 0 ? this.stream.token(this.index - 1) : null;
+    }
+
+    protected TokenType previousType() {
+        return this.previousType;
+    }
+
+    /**
+     * The literal value of the token just consumed.
+     */
+    protected Object previousLiteral() {
+        return this.stream != null ? this.stream.literal(this.index - 1) : this.previous.literal();
     }
 
     protected void synchronize() {
         this.advance();
 
         while (!this.isAtEnd()) {
-            if (this.previous().type() == SEMICOLON)
+            if (this.previousType() == SEMICOLON)
                 return;
 
-            switch (this.peek().type()) {
+            switch (this.currentType) {
                 case CLASS, FUN, VAR, FOR, IF, WHILE, PRINT, RETURN -> {
                     return;
                 }
@@ -91,8 +160,8 @@ public class TokenEnumerator {
         return error(this.peek(), message);
     }
 
-    protected static ParseError error(Token token, String message) {
-        Lox.error(token, message);
+    protected ParseError error(Token token, String message) {
+        reporter.error(token, message);
         return new ParseError();
     }
 
@@ -0,0 +1,66 @@
+package com.craftinginterpreters.lox.profiler;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A shadow stack of the Lox functions the interpreter is running, kept for
+ * the {@link Profiler} to sample from another thread.
+ * <p>
+ * Pushing and popping are a plain array store and a release store of the
+ * depth, so keeping the stack costs a few instructions per call. The sampler
+ * reads it without locking and may see a frame that changed while it was
+ * copying the stack; at the sampling rate this is noise.
+ */
+public class CallStack {
+
+    private static final VarHandle DEPTH;
+
+    static {
+        try {
+            DEPTH = MethodHandles.lookup().findVarHandle(CallStack.class, "depth", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Stmt.Function[] frames = new Stmt.Function[64];
+    private int depth = 0;
+
+    public void push(Stmt.Function function) {
+        if (depth == frames.length)
+            frames = Arrays.copyOf(frames, depth * 2);
+
+        frames[depth] = function;
+        DEPTH.setRelease(this, depth + 1);
+    }
+
+    /**
+     * Replaces the running function with the one it tail calls.
+     */
+    public void replace(Stmt.Function function) {
+        frames[depth - 1] = function;
+    }
+
+    public void pop() {
+        DEPTH.setRelease(this, depth - 1);
+    }
+
+    /**
+     * Drops all frames, after a runtime error unwound them.
+     */
+    public void clear() {
+        DEPTH.setRelease(this, 0);
+    }
+
+    /**
+     * Copies the current frames, outermost first.
+     */
+    Stmt.Function[] snapshot() {
+        int depth = (int) DEPTH.getAcquire(this);
+        return Arrays.copyOf(frames, depth);
+    }
+}
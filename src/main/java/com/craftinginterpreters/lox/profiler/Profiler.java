@@ -0,0 +1,147 @@
+package com.craftinginterpreters.lox.profiler;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Samples a {@link CallStack} from a background thread.
+ * <p>
+ * Each sample counts once for the function on top of the stack (its self
+ * time) and once for every distinct function on the stack (its total
+ * time). Times are estimated by spreading the profiled wall-clock time over
+ * the samples taken.
+ */
+public class Profiler {
+
+    private static final long INTERVAL_NANOS = 1_000_000;
+    private static final String SCRIPT = "<script>";
+
+    private final CallStack stack;
+    private final Map<List<Stmt.Function>, int[]> samples = new HashMap<>();
+    private final Thread sampler;
+
+    private volatile boolean running;
+    private long startNanos;
+    private long elapsedNanos;
+    private int sampleCount;
+
+    public Profiler(CallStack stack) {
+        this.stack = stack;
+        this.sampler = new Thread(this::sample, "lox-profiler");
+        this.sampler.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        startNanos = System.nanoTime();
+        sampler.start();
+    }
+
+    public void stop() {
+        running = false;
+        elapsedNanos = System.nanoTime() - startNanos;
+
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample() {
+        long next = System.nanoTime();
+
+        while (running) {
+            List<Stmt.Function> frames = Arrays.asList(stack.snapshot());
+            samples.computeIfAbsent(frames, key -> new int[1])[0]++;
+            sampleCount++;
+
+            next += INTERVAL_NANOS;
+            long delay = next - System.nanoTime();
+
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay / 1_000_000, (int) (delay % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                // Fell behind; don't try to catch up with a burst of samples.
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Prints the self and total time of every sampled function, most
+     * expensive self time first.
+     */
+    public void report(PrintStream out) {
+        Map<String, int[]> functions = new HashMap<>();
+
+        samples.forEach((frames, count) -> {
+            String top = frames.isEmpty() ? SCRIPT : label(frames.get(frames.size() - 1));
+            functions.computeIfAbsent(top, key -> new int[2])[0] += count[0];
+
+            Set<String> seen = new HashSet<>();
+            seen.add(SCRIPT);
+            for (Stmt.Function frame : frames) {
+                seen.add(label(frame));
+            }
+
+            for (String function : seen) {
+                functions.computeIfAbsent(function, key -> new int[2])[1] += count[0];
+            }
+        });
+
+        double millisPerSample = sampleCount == 0 ? 0 : elapsedNanos / 1e6 / sampleCount;
+
+        out.printf("Profile: %d samples over %.1f ms%n", sampleCount, elapsedNanos / 1e6);
+        out.printf("%12s %7s %12s %7s  %s%n", "self ms", "self%", "total ms", "total%", "function");
+
+        functions.entrySet().stream()
+                .sorted((a, b) -> b.getValue()[0] != a.getValue()[0]
+                        ? Integer.compare(b.getValue()[0], a.getValue()[0])
+                        : Integer.compare(b.getValue()[1], a.getValue()[1]))
+                .forEach(entry -> {
+                    int self = entry.getValue()[0];
+                    int total = entry.getValue()[1];
+
+                    out.printf("%12.1f %6.1f%% %12.1f %6.1f%%  %s%n",
+                            self * millisPerSample, percent(self),
+                            total * millisPerSample, percent(total),
+                            entry.getKey());
+                });
+    }
+
+    /**
+     * Writes the samples as collapsed stacks, one {@code frame;frame;... count}
+     * line per distinct stack, as read by flame graph tools.
+     */
+    public void writeCollapsed(Path path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            samples.forEach((frames, count) -> {
+                StringBuilder line = new StringBuilder(SCRIPT);
+                for (Stmt.Function frame : frames) {
+                    line.append(';').append(label(frame));
+                }
+
+                writer.println(line.append(' ').append(count[0]));
+            });
+        }
+    }
+
+    private double percent(int count) {
+        return sampleCount == 0 ? 0 : 100.0 * count / sampleCount;
+    }
+
+    private static String label(Stmt.Function function) {
+        return function.getName().lexeme() + ":" + function.getName().line();
+    }
+}
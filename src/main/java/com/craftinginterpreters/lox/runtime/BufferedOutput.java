@@ -0,0 +1,107 @@
+package com.craftinginterpreters.lox.runtime;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output to a byte stream. Lines are encoded into a large buffer that is
+ * written to the stream when it fills up, when a program finishes, and
+ * before an error is reported, so error messages still appear after the
+ * output that preceded them. Writing a line takes no lock and makes no
+ * system call.
+ * <p>
+ * Like the interpreters that use it, an output is meant for one thread;
+ * each {@link com.craftinginterpreters.lox.LoxEngine} has its own.
+ */
+public final class BufferedOutput implements Output {
+
+    private static final int CAPACITY = 1 << 16;
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final boolean ASCII_COMPATIBLE = CHARSET.equals(StandardCharsets.UTF_8)
+            || CHARSET.equals(StandardCharsets.ISO_8859_1)
+            || CHARSET.equals(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+
+    private final PrintStream out;
+    private final CharsetEncoder encoder = CHARSET.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer buffer = ByteBuffer.allocate(CAPACITY);
+
+    public BufferedOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void println(String text) {
+        int start = ASCII_COMPATIBLE ? putAscii(text) : 0;
+
+        if (start < text.length())
+            encode(text, start);
+
+        if (buffer.remaining() < LINE_SEPARATOR.length)
+            drain();
+
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.position() > 0)
+            drain();
+    }
+
+    /**
+     * Copies the leading ASCII characters of {@code text} straight into the
+     * buffer, returning the index of the first one left to encode.
+     */
+    private int putAscii(String text) {
+        byte[] bytes = buffer.array();
+        int position = buffer.position();
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = text.charAt(i);
+
+            if (c >= 0x80)
+                break;
+
+            if (position == CAPACITY) {
+                buffer.position(position);
+                drain();
+                position = 0;
+            }
+
+            bytes[position++] = (byte) c;
+            i++;
+        }
+
+        buffer.position(position);
+        return i;
+    }
+
+    private void encode(String text, int start) {
+        CharBuffer chars = CharBuffer.wrap(text, start, text.length());
+
+        encoder.reset();
+
+        while (encoder.encode(chars, buffer, true).isOverflow())
+            drain();
+
+        while (encoder.flush(buffer).isOverflow())
+            drain();
+    }
+
+    private void drain() {
+        out.write(buffer.array(), 0, buffer.position());
+        out.flush();
+        buffer.clear();
+    }
+}
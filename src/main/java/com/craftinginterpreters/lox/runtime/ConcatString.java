@@ -0,0 +1,89 @@
+package com.craftinginterpreters.lox.runtime;
+
+/**
+ * A Lox string built by {@code +}, kept in a growable buffer so that building
+ * a string piece by piece costs time in proportion to what is appended
+ * instead of copying the whole string at every step.
+ * <p>
+ * Values share their buffer: each knows how much of it is its own, so
+ * appending to the newest value of a buffer extends it in place without
+ * changing older values, and anything else copies into a new buffer. The
+ * string is flattened, once, when it is compared or printed. Short results
+ * are plain {@link String}s, which are cheaper to make than to defer.
+ */
+public final class ConcatString implements CharSequence {
+
+    private static final int MIN_LENGTH = 64;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat;
+
+    private ConcatString(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Whether {@code value} is a Lox string.
+     */
+    public static boolean isString(Object value) {
+        return value instanceof String || value instanceof ConcatString;
+    }
+
+    /**
+     * Concatenates two Lox strings.
+     */
+    public static Object concat(CharSequence a, CharSequence b) {
+        int length = a.length() + b.length();
+
+        if (length < MIN_LENGTH)
+            return a.toString().concat(b.toString());
+
+        // Flatten b first: it may be a itself.
+        String tail = b.toString();
+
+        if (a instanceof ConcatString string && string.length == string.buffer.length()) {
+            string.buffer.append(tail);
+            return new ConcatString(string.buffer, length);
+        }
+
+        StringBuilder buffer = new StringBuilder(length * 2);
+        buffer.append(a.toString()).append(tail);
+        return new ConcatString(buffer, length);
+    }
+
+    /**
+     * Returns {@code value} as a {@link String} if it is a concatenated one,
+     * or else unchanged, for code that expects only Java values.
+     */
+    public static Object flatten(Object value) {
+        return value instanceof ConcatString string ? string.toString() : value;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length)
+            throw new StringIndexOutOfBoundsException(index);
+
+        return buffer.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null)
+            flat = buffer.substring(0, length);
+
+        return flat;
+    }
+}
@@ -0,0 +1,43 @@
+package com.craftinginterpreters.lox.runtime;
+
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+
+import java.util.List;
+
+/**
+ * A method that was read off an instance without being called right away.
+ * Calling it passes the instance as the method's receiver.
+ */
+public class LoxBoundMethod implements LoxCallable {
+
+    private final LoxFunction method;
+    private final LoxInstance receiver;
+
+    public LoxBoundMethod(LoxFunction method, LoxInstance receiver) {
+        this.method = method;
+        this.receiver = receiver;
+    }
+
+    public LoxFunction getMethod() {
+        return method;
+    }
+
+    public LoxInstance getReceiver() {
+        return receiver;
+    }
+
+    @Override
+    public int arity() {
+        return method.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return method.call(interpreter, receiver, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
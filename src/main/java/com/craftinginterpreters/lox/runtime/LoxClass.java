@@ -1,34 +1,43 @@
 package com.craftinginterpreters.lox.runtime;
 
 import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.util.SymbolMap;
 
 import java.util.List;
-import java.util.Map;
 
 public class LoxClass implements LoxCallable {
 
+    private static final Symbol INIT = Symbol.intern("init");
+
     private final String name;
     private final LoxClass superClass;
 
-    private final Map<String, LoxFunction> methods;
+    private final SymbolMap<LoxFunction> methods;
+    private final Shape rootShape = new Shape(this);
 
-    public LoxClass(String name, LoxClass superClass, Map<String, LoxFunction> methods) {
+    public LoxClass(String name, LoxClass superClass, SymbolMap<LoxFunction> methods) {
         this.superClass = superClass;
         this.name = name;
 
         this.methods = methods;
     }
 
-    public LoxFunction findMethod(String name) {
-        if (methods.containsKey(name))
-            return methods.get(name);
+    public LoxFunction findMethod(Symbol name) {
+        for (LoxClass clazz = this; clazz != null; clazz = clazz.superClass) {
+            LoxFunction method = clazz.methods.get(name);
 
-        if (superClass != null)
-            return superClass.findMethod(name);
+            if (method != null)
+                return method;
+        }
 
         return null;
     }
 
+    public LoxFunction findInitializer() {
+        return findMethod(INIT);
+    }
+
     @Override
     public String toString() {
         return name;
@@ -37,17 +46,17 @@ public class LoxClass implements LoxCallable {
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
         LoxInstance instance = new LoxInstance(this);
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findInitializer();
 
         if (initializer != null)
-            initializer.bind(instance).call(interpreter, arguments);
+            initializer.call(interpreter, instance, arguments);
 
         return instance;
     }
 
     @Override
     public int arity() {
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findInitializer();
 
         if (initializer == null)
             return 0;
@@ -58,4 +67,22 @@ public class LoxClass implements LoxCallable {
     public String getName() {
         return name;
     }
+
+    public LoxClass getSuperClass() {
+        return superClass;
+    }
+
+    /**
+     * The methods declared by this class itself, not inherited ones.
+     */
+    public SymbolMap<LoxFunction> getMethods() {
+        return methods;
+    }
+
+    /**
+     * The shape of new instances, which have no fields yet.
+     */
+    public Shape getRootShape() {
+        return rootShape;
+    }
 }
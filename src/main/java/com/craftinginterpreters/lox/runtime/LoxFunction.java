@@ -2,9 +2,9 @@ package com.craftinginterpreters.lox.runtime;
 
 import com.craftinginterpreters.lox.interpreter.Environment;
 import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.interpreter.TailCall;
 import com.craftinginterpreters.lox.ast.Stmt;
-import com.craftinginterpreters.lox.lexer.Token;
-import com.craftinginterpreters.lox.util.Return;
+import com.craftinginterpreters.lox.profiler.CallStack;
 
 import java.util.List;
 
@@ -22,11 +22,20 @@ public class LoxFunction implements LoxCallable {
         this.isInitializer = isInitializer;
     }
 
-    public LoxFunction bind(LoxInstance instance) {
-        Environment environment = new Environment(closure);
-        environment.define("this", instance);
+    public Stmt.Function getDeclaration() {
+        return declaration;
+    }
+
+    public Environment getClosure() {
+        return closure;
+    }
+
+    public boolean isInitializer() {
+        return isInitializer;
+    }
 
-        return new LoxFunction(declaration, environment, isInitializer);
+    public LoxCallable bind(LoxInstance instance) {
+        return new LoxBoundMethod(this, instance);
     }
 
     @Override
@@ -41,26 +50,66 @@ public class LoxFunction implements LoxCallable {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        Environment environment = new Environment(closure);
+        Environment frame = newFrame();
+
+        for (Object argument : arguments) {
+            frame.define(argument);
+        }
+
+        return execute(interpreter, frame);
+    }
 
-        int i = 0;
-        for (Token param : declaration.getParams()) {
-            environment.define(param.lexeme(), arguments.get(i));
-            i++;
+    /**
+     * Calls this function as a method of {@code receiver}.
+     */
+    public Object call(Interpreter interpreter, LoxInstance receiver, List<Object> arguments) {
+        Environment frame = newFrame();
+        frame.define(receiver);
+
+        for (Object argument : arguments) {
+            frame.define(argument);
         }
 
-        try {
-            interpreter.executeBlock(declaration.getBody(), environment);
-        } catch (Return returnValue) {
-            if (isInitializer)
-                return closure.getAt(0, "this");
+        return execute(interpreter, frame);
+    }
+
+    /**
+     * Creates the frame for a call. The caller defines the receiver of a
+     * method and then the arguments, in that order, before executing it.
+     */
+    public Environment newFrame() {
+        return new Environment(closure, declaration.getFrameSize());
+    }
+
+    /**
+     * Runs the body in {@code frame}. A call the body returns in tail
+     * position comes back as a {@link TailCall} and runs here in its place,
+     * so tail recursion doesn't grow the Java stack.
+     */
+    public Object execute(Interpreter interpreter, Environment frame) {
+        CallStack stack = interpreter.getCallStack();
+        if (stack != null)
+            stack.push(declaration);
 
-            return returnValue.getValue();
+        LoxFunction function = this;
+        Object result = interpreter.executeFunction(this, frame);
+
+        while (result instanceof TailCall call) {
+            function = call.getFunction();
+            frame = call.getFrame();
+
+            if (stack != null)
+                stack.replace(function.declaration);
+
+            result = interpreter.executeFunction(function, frame);
         }
 
-        if (isInitializer)
-            return closure.getAt(0, "this");
+        if (stack != null)
+            stack.pop();
+
+        if (function.isInitializer)
+            return frame.get(0);
 
-        return null;
+        return result != Interpreter.NORMAL ? result : null;
     }
 }
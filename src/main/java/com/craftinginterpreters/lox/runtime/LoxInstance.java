@@ -3,22 +3,46 @@ package com.craftinginterpreters.lox.runtime;
 import com.craftinginterpreters.lox.util.RuntimeError;
 import com.craftinginterpreters.lox.lexer.Token;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class LoxInstance {
-    private final LoxClass clazz;
-    private final Map<String, Object> fields = new HashMap<>();
+
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private Shape shape;
+    private Object[] fields = NO_FIELDS;
 
     public LoxInstance(LoxClass clazz) {
-    this.clazz = clazz;
+        this.shape = clazz.getRootShape();
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public Object getField(int slot) {
+        return fields[slot];
+    }
+
+    /**
+     * Stores {@code value} in {@code slot}, which is either an existing
+     * field or the next one, and moves the instance to {@code shape}.
+     */
+    public void setField(Shape shape, int slot, Object value) {
+        if (slot == fields.length)
+            fields = Arrays.copyOf(fields, Math.max(4, fields.length * 2));
+
+        fields[slot] = value;
+        this.shape = shape;
     }
 
     public Object get(Token name) {
-        if (fields.containsKey(name.lexeme()))
-            return fields.get(name.lexeme());
+        int slot = shape.slotOf(name.symbol());
 
-        LoxFunction method = clazz.findMethod(name.lexeme());
+        if (slot >= 0)
+            return fields[slot];
+
+        LoxFunction method = shape.getLoxClass().findMethod(name.symbol());
 
         if (method != null)
             return method.bind(this);
@@ -27,11 +51,18 @@ public class LoxInstance {
     }
 
     public void set(Token name, Object value) {
-    fields.put(name.lexeme(), value);
+        int slot = shape.slotOf(name.symbol());
+
+        if (slot >= 0) {
+            fields[slot] = value;
+            return;
+        }
+
+        setField(shape.withField(name.symbol()), shape.size(), value);
     }
 
     @Override
     public String toString() {
-        return clazz.getName() + " instance";
+        return shape.getLoxClass().getName() + " instance";
     }
 }
@@ -0,0 +1,14 @@
+package com.craftinginterpreters.lox.runtime;
+
+/**
+ * Where {@code print} writes.
+ */
+public interface Output {
+
+    void println(String text);
+
+    /**
+     * Writes everything buffered so far.
+     */
+    void flush();
+}
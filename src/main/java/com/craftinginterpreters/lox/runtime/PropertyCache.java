@@ -0,0 +1,149 @@
+package com.craftinginterpreters.lox.runtime;
+
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+/**
+ * An inline cache for a single property access site, keyed by the shape of
+ * the instance. Each entry remembers the slot the property lives in; for
+ * reads of methods the slot is -1 and the entry holds the method, for
+ * writes the entry holds the shape the instance has afterwards.
+ * <p>
+ * A site starts out monomorphic and becomes polymorphic when it sees more
+ * shapes. Once it has seen more than {@link #MAX_ENTRIES}, it stops caching
+ * and always does the full lookup.
+ */
+public final class PropertyCache {
+
+    private static final int MAX_ENTRIES = 4;
+
+    private Shape shape;
+    private int slot;
+    private Object target;
+
+    private Shape[] shapes;
+    private int[] slots;
+    private Object[] targets;
+    private int size;
+
+    private boolean megamorphic;
+
+    public Object get(LoxInstance instance, Token name) {
+        Shape current = instance.getShape();
+
+        if (current == shape)
+            return read(instance, slot, target);
+
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == current)
+                return read(instance, slots[i], targets[i]);
+        }
+
+        if (megamorphic)
+            return instance.get(name);
+
+        int slot = current.slotOf(name.symbol());
+        LoxFunction method = slot < 0 ? findMethod(current, name) : null;
+
+        add(current, slot, method);
+        return read(instance, slot, method);
+    }
+
+    /**
+     * Like {@link #get}, but returns a method unbound so that it can be
+     * called with the instance as its receiver. Returns null if the property
+     * is a field.
+     */
+    public LoxFunction getMethod(LoxInstance instance, Token name) {
+        Shape current = instance.getShape();
+
+        if (current == shape)
+            return slot < 0 ? (LoxFunction) target : null;
+
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == current)
+                return slots[i] < 0 ? (LoxFunction) targets[i] : null;
+        }
+
+        int slot = current.slotOf(name.symbol());
+        LoxFunction method = slot < 0 ? findMethod(current, name) : null;
+
+        if (!megamorphic)
+            add(current, slot, method);
+
+        return method;
+    }
+
+    public void set(LoxInstance instance, Token name, Object value) {
+        Shape current = instance.getShape();
+
+        if (current == shape) {
+            instance.setField((Shape) target, slot, value);
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == current) {
+                instance.setField((Shape) targets[i], slots[i], value);
+                return;
+            }
+        }
+
+        if (megamorphic) {
+            instance.set(name, value);
+            return;
+        }
+
+        Shape next = current;
+        int slot = current.slotOf(name.symbol());
+
+        if (slot < 0) {
+            next = current.withField(name.symbol());
+            slot = current.size();
+        }
+
+        add(current, slot, next);
+        instance.setField(next, slot, value);
+    }
+
+    private static LoxFunction findMethod(Shape shape, Token name) {
+        LoxFunction method = shape.getLoxClass().findMethod(name.symbol());
+
+        if (method == null)
+            throw new RuntimeError(name, "Undefined property '" + name.lexeme() + "'.");
+
+        return method;
+    }
+
+    private static Object read(LoxInstance instance, int slot, Object method) {
+        if (slot >= 0)
+            return instance.getField(slot);
+
+        return ((LoxFunction) method).bind(instance);
+    }
+
+    private void add(Shape shape, int slot, Object target) {
+        if (this.shape == null) {
+            this.shape = shape;
+            this.slot = slot;
+            this.target = target;
+            return;
+        }
+
+        if (size == MAX_ENTRIES - 1) {
+            megamorphic = true;
+            return;
+        }
+
+        if (shapes == null) {
+            shapes = new Shape[MAX_ENTRIES - 1];
+            slots = new int[MAX_ENTRIES - 1];
+            targets = new Object[MAX_ENTRIES - 1];
+        }
+
+        shapes[size] = shape;
+        slots[size] = slot;
+        targets[size] = target;
+        size++;
+    }
+}
@@ -0,0 +1,72 @@
+package com.craftinginterpreters.lox.runtime;
+
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+/**
+ * The layout of an instance: which field lives in which slot of its field
+ * array. Instances that had the same fields added in the same order share
+ * a shape, so a shape seen once at a property access identifies the slot
+ * for every later instance with that shape.
+ * <p>
+ * Every class has its own root shape, which means a shape also determines
+ * the class and therefore the methods an instance responds to.
+ */
+public final class Shape {
+
+    private final LoxClass clazz;
+    private final SymbolMap<Integer> slots;
+    private final SymbolMap<Shape> transitions = new SymbolMap<>();
+
+    Shape(LoxClass clazz) {
+        this.clazz = clazz;
+        this.slots = new SymbolMap<>();
+    }
+
+    private Shape(Shape parent, Symbol field) {
+        this.clazz = parent.clazz;
+        this.slots = parent.slots.copy();
+        this.slots.put(field, parent.slots.size());
+    }
+
+    public LoxClass getLoxClass() {
+        return clazz;
+    }
+
+    /**
+     * The slot of {@code field}, or -1 if instances of this shape don't
+     * have it.
+     */
+    public int slotOf(Symbol field) {
+        Integer slot = slots.get(field);
+        return slot != null ? slot : -1;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * The names of the fields, in slot order.
+     */
+    public Symbol[] getFields() {
+        Symbol[] fields = new Symbol[slots.size()];
+        slots.forEach((field, slot) -> fields[slot] = field);
+        return fields;
+    }
+
+    /**
+     * The shape an instance of this shape moves to when {@code field} is
+     * added to it.
+     */
+    public Shape withField(Symbol field) {
+        Shape next = transitions.get(field);
+
+        if (next == null) {
+            next = new Shape(this, field);
+            transitions.put(field, next);
+        }
+
+        return next;
+    }
+}
@@ -0,0 +1,37 @@
+package com.craftinginterpreters.lox.runtime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Output to a character stream, such as the writer of a script context.
+ * Buffering is left to the writer.
+ */
+public final class WriterOutput implements Output {
+
+    private final Writer writer;
+
+    public WriterOutput(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void println(String text) {
+        try {
+            writer.write(text);
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.craftinginterpreters.lox.script;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.runtime.ConcatString;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.runtime.WriterOutput;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A parsed and resolved script. Each evaluation runs it in a fresh
+ * interpreter whose globals come from the context's bindings, so it can be
+ * evaluated any number of times with different bindings.
+ * <p>
+ * The AST keeps the interpreter's caches, so evaluations of one script take
+ * turns; compile a script once per thread to evaluate it in parallel.
+ */
+public class LoxCompiledScript extends CompiledScript {
+
+    private final ScriptEngine engine;
+    private final Collection<Stmt> statements;
+
+    LoxCompiledScript(ScriptEngine engine, Collection<Stmt> statements) {
+        this.engine = engine;
+        this.statements = statements;
+    }
+
+    /**
+     * Runs the script. Lox programs have no value, so this returns null.
+     */
+    @Override
+    public synchronized Object eval(ScriptContext context) throws ScriptException {
+        ScriptErrorReporter errors = new ScriptErrorReporter();
+        Output output = new WriterOutput(context.getWriter());
+        Interpreter interpreter = new Interpreter(errors, output, null, 0);
+        Globals globals = interpreter.getGlobals();
+        int natives = globals.size();
+
+        define(globals, context.getBindings(ScriptContext.GLOBAL_SCOPE));
+        define(globals, context.getBindings(ScriptContext.ENGINE_SCOPE));
+
+        try {
+            interpreter.interpret(statements);
+        } finally {
+            output.flush();
+        }
+
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+
+        for (int i = natives; i < globals.size(); i++) {
+            Globals.Cell cell = globals.cell(i);
+
+            if (cell.isDefined())
+                bindings.put(cell.getName().getName(), ConcatString.flatten(cell.getValue()));
+        }
+
+        errors.check();
+        return null;
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    private static void define(Globals globals, Bindings bindings) {
+        if (bindings == null)
+            return;
+
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            globals.define(Symbol.intern(binding.getKey()), toLox(binding.getValue()));
+        }
+    }
+
+    /**
+     * Converts a Java value to the Lox value it stands for. Numbers become
+     * doubles and other strings of characters become strings; anything
+     * else is passed to the script as it is.
+     */
+    private static Object toLox(Object value) {
+        if (value instanceof Number number)
+            return number.doubleValue();
+
+        if (value instanceof CharSequence || value instanceof Character)
+            return value.toString();
+
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+package com.craftinginterpreters.lox.script;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Resolver;
+import com.craftinginterpreters.lox.lexer.Lexer;
+import com.craftinginterpreters.lox.parser.Parser;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Collection;
+
+/**
+ * Runs Lox scripts on the tree-walking interpreter.
+ * <p>
+ * The engine-scope bindings are the script's globals: they are defined
+ * before it runs, and the globals it defines are put back afterwards.
+ * Scripts that run repeatedly should be compiled once; evaluating a
+ * {@link CompiledScript} skips scanning, parsing and resolution.
+ */
+public class LoxScriptEngine extends AbstractScriptEngine implements Compilable {
+
+    private final ScriptEngineFactory factory;
+
+    public LoxScriptEngine(ScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        ScriptErrorReporter errors = new ScriptErrorReporter();
+        Collection<Stmt> statements = parse(script);
+
+        new Resolver(errors).resolve(statements);
+        errors.check();
+
+        return new LoxCompiledScript(this, statements);
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Scans and parses {@code script}, throwing its syntax errors.
+     */
+    protected Collection<Stmt> parse(String script) throws ScriptException {
+        ScriptErrorReporter errors = new ScriptErrorReporter();
+
+        Parser parser = new Parser(new Lexer(script, errors), errors);
+        Collection<Stmt> statements = parser.parse();
+
+        errors.check();
+        return statements;
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringWriter script = new StringWriter();
+
+        try {
+            reader.transferTo(script);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+
+        return script.toString();
+    }
+}
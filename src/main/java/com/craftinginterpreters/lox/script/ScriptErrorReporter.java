@@ -0,0 +1,36 @@
+package com.craftinginterpreters.lox.script;
+
+import com.craftinginterpreters.lox.ErrorReporter;
+
+import javax.script.ScriptException;
+import java.util.StringJoiner;
+
+/**
+ * Collects the errors of compiling or evaluating a script, so they can be
+ * thrown to the caller as a {@link ScriptException} instead of printed.
+ */
+public final class ScriptErrorReporter implements ErrorReporter {
+
+    private final StringJoiner messages = new StringJoiner("\n");
+    private boolean failed = false;
+
+    @Override
+    public void reportError(String message) {
+        messages.add(message);
+        failed = true;
+    }
+
+    @Override
+    public void reportRuntimeError(String message) {
+        messages.add(message);
+        failed = true;
+    }
+
+    /**
+     * Throws the errors reported so far, if there were any.
+     */
+    public void check() throws ScriptException {
+        if (failed)
+            throw new ScriptException(messages.toString());
+    }
+}
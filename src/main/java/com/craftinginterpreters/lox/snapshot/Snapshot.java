@@ -0,0 +1,119 @@
+package com.craftinginterpreters.lox.snapshot;
+
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.TokenType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * A binary snapshot of the tree-walking interpreter's globals, taken after
+ * a prelude has run, so that later runs can restore the prelude's classes,
+ * functions and values instead of scanning, parsing, resolving and running
+ * it again.
+ * <p>
+ * A snapshot holds the prelude's resolved AST, the objects reachable from
+ * the globals, and the globals themselves. Every object is written after
+ * the objects it is constructed from, and the contents of environments,
+ * classes and instances come after all the objects, so cycles between
+ * closures and the frames they capture restore without fixups. Integers
+ * are variable-length and each string is written once.
+ */
+public final class Snapshot {
+
+    static final int MAGIC = 0x4c4f5853; // "LOXS"
+    static final int VERSION = 1;
+
+    // Values.
+    static final int NIL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int NUMBER = 3;
+    static final int STRING = 4;
+    static final int OBJECT = 5;
+    static final int NATIVE = 6;
+
+    // Objects.
+    static final int ENVIRONMENT = 0;
+    static final int FUNCTION = 1;
+    static final int CLASS = 2;
+    static final int INSTANCE = 3;
+    static final int BOUND_METHOD = 4;
+
+    // Statements and expressions; NONE stands for a missing optional one.
+    static final int NONE = 0;
+
+    static final int BLOCK = 1;
+    static final int CLASS_STMT = 2;
+    static final int EXPRESSION = 3;
+    static final int FUNCTION_STMT = 4;
+    static final int IF = 5;
+    static final int PRINT = 6;
+    static final int RETURN = 7;
+    static final int VAR = 8;
+    static final int WHILE = 9;
+
+    static final int ASSIGN = 1;
+    static final int BINARY = 2;
+    static final int CALL = 3;
+    static final int GET = 4;
+    static final int GROUPING = 5;
+    static final int LITERAL = 6;
+    static final int LOGICAL = 7;
+    static final int SET = 8;
+    static final int SUPER = 9;
+    static final int THIS = 10;
+    static final int UNARY = 11;
+    static final int VARIABLE = 12;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Whether tokens of {@code type} carry a literal value.
+     */
+    static boolean hasLiteral(TokenType type) {
+        return type == TokenType.NUMBER || type == TokenType.STRING;
+    }
+
+    /**
+     * Whether every token of {@code type} has the same lexeme.
+     */
+    static boolean hasFixedLexeme(TokenType type) {
+        return type != TokenType.IDENTIFIER && !hasLiteral(type);
+    }
+
+    /**
+     * Writes the globals of {@code interpreter}, which has just run
+     * {@code prelude}, to {@code path}.
+     *
+     * @throws IllegalArgumentException if a global refers to a value that
+     *         can't be snapshotted, such as a function declared outside the
+     *         prelude.
+     */
+    public static void write(Interpreter interpreter, Collection<Stmt> prelude, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            new SnapshotWriter(out).write(interpreter, prelude);
+        }
+    }
+
+    /**
+     * Defines the globals of the snapshot at {@code path} in
+     * {@code interpreter}.
+     */
+    public static void read(Interpreter interpreter, Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            new SnapshotReader(in).read(interpreter);
+        } catch (EOFException e) {
+            throw new IOException("The snapshot is truncated or corrupt.", e);
+        }
+    }
+}
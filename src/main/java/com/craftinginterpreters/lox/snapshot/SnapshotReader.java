@@ -0,0 +1,355 @@
+package com.craftinginterpreters.lox.snapshot;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenType;
+import com.craftinginterpreters.lox.runtime.LoxBoundMethod;
+import com.craftinginterpreters.lox.runtime.LoxClass;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.snapshot.Snapshot.*;
+
+/**
+ * Reads a {@link Snapshot} written by {@link SnapshotWriter}, in the same
+ * order.
+ */
+final class SnapshotReader {
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final DataInputStream in;
+
+    private final List<String> strings = new ArrayList<>();
+    private final List<Stmt.Function> functions = new ArrayList<>();
+    private final String[] lexemes = new String[TOKEN_TYPES.length];
+    private int line = 0;
+    private Object[] objects;
+
+    SnapshotReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    void read(Interpreter interpreter) throws IOException {
+        Globals globals = interpreter.getGlobals();
+
+        if (in.readInt() != MAGIC || varint() != VERSION)
+            throw new IOException("Not a snapshot of this version of Lox.");
+
+        // Only the functions in the prelude are needed; the rest of it has
+        // already run.
+        statements();
+
+        objects = new Object[varint()];
+        for (int id = 0; id < objects.length; id++) {
+            objects[id] = header();
+        }
+
+        for (Object object : objects) {
+            contents(object, globals);
+        }
+
+        int defined = varint();
+        for (int i = 0; i < defined; i++) {
+            Symbol name = Symbol.intern(string());
+            globals.define(name, value(globals));
+        }
+    }
+
+    private Object header() throws IOException {
+        int kind = varint();
+
+        switch (kind) {
+            case ENVIRONMENT: {
+                Environment enclosing = (Environment) optionalObject();
+                return new Environment(enclosing, varint());
+            }
+            case FUNCTION: {
+                Stmt.Function declaration = functions.get(varint());
+                Environment closure = (Environment) optionalObject();
+                return new LoxFunction(declaration, closure, bool());
+            }
+            case CLASS: {
+                String name = string();
+                LoxClass superClass = (LoxClass) optionalObject();
+                // Filled in with the contents.
+                return new LoxClass(name, superClass, new SymbolMap<>());
+            }
+            case INSTANCE:
+                return new LoxInstance((LoxClass) objects[varint()]);
+            case BOUND_METHOD: {
+                LoxFunction method = (LoxFunction) objects[varint()];
+                return new LoxBoundMethod(method, (LoxInstance) objects[varint()]);
+            }
+            default:
+                throw new IOException("Unknown object kind " + kind + ".");
+        }
+    }
+
+    private void contents(Object object, Globals globals) throws IOException {
+        if (object instanceof Environment environment) {
+            int defined = varint();
+
+            for (int slot = 0; slot < defined; slot++) {
+                environment.define(value(globals));
+            }
+        } else if (object instanceof LoxClass clazz) {
+            int count = varint();
+
+            for (int i = 0; i < count; i++) {
+                Symbol name = Symbol.intern(string());
+                clazz.getMethods().put(name, (LoxFunction) objects[varint()]);
+            }
+        } else if (object instanceof LoxInstance instance) {
+            int count = varint();
+
+            for (int slot = 0; slot < count; slot++) {
+                Symbol name = Symbol.intern(string());
+                instance.setField(instance.getShape().withField(name), slot, value(globals));
+            }
+        }
+    }
+
+    private Object optionalObject() throws IOException {
+        int id = varint();
+        return id == 0 ? null : objects[id - 1];
+    }
+
+    private Object value(Globals globals) throws IOException {
+        int tag = varint();
+
+        return switch (tag) {
+            case NIL -> null;
+            case FALSE -> false;
+            case TRUE -> true;
+            case NUMBER -> in.readDouble();
+            case STRING -> string();
+            case OBJECT -> objects[varint()];
+            case NATIVE -> globals.cell(Symbol.intern(string())).getValue();
+            default -> throw new IOException("Unknown value tag " + tag + ".");
+        };
+    }
+
+    /**
+     * Reads a literal, which is never an object.
+     */
+    private Object literal() throws IOException {
+        return value(null);
+    }
+
+    private List<Stmt> statements() throws IOException {
+        int count = varint();
+        List<Stmt> statements = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            statements.add(statement());
+        }
+
+        return statements;
+    }
+
+    private Stmt statement() throws IOException {
+        int tag = varint();
+
+        switch (tag) {
+            case NONE:
+                return null;
+            case BLOCK: {
+                int frameSize = varint();
+                Stmt.Block block = new Stmt.Block(statements());
+                block.setFrameSize(frameSize);
+                return block;
+            }
+            case CLASS_STMT: {
+                Token name = token();
+                Expr.Variable superclass = (Expr.Variable) expression();
+
+                int count = varint();
+                List<Stmt.Function> methods = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    methods.add(function());
+                }
+
+                return new Stmt.Class(name, superclass, methods);
+            }
+            case EXPRESSION:
+                return new Stmt.Expression(expression());
+            case FUNCTION_STMT:
+                return function();
+            case IF: {
+                Expr condition = expression();
+                Stmt thenBranch = statement();
+                return new Stmt.If(condition, thenBranch, statement());
+            }
+            case PRINT:
+                return new Stmt.Print(expression());
+            case RETURN: {
+                Token keyword = token();
+                Stmt.Return stmt = new Stmt.Return(keyword, expression());
+                stmt.setTailCall(bool());
+                return stmt;
+            }
+            case VAR: {
+                Token name = token();
+                return new Stmt.Var(name, expression());
+            }
+            case WHILE: {
+                Expr condition = expression();
+                return new Stmt.While(condition, statement());
+            }
+            default:
+                throw new IOException("Unknown statement tag " + tag + ".");
+        }
+    }
+
+    private Stmt.Function function() throws IOException {
+        // Functions are numbered before their bodies, as they were written.
+        int index = functions.size();
+        functions.add(null);
+
+        Token name = token();
+
+        int count = varint();
+        List<Token> params = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            params.add(token());
+        }
+
+        int frameSize = varint();
+        Stmt.Function function = new Stmt.Function(name, params, statements());
+        function.setFrameSize(frameSize);
+
+        functions.set(index, function);
+        return function;
+    }
+
+    private Expr expression() throws IOException {
+        int tag = varint();
+
+        switch (tag) {
+            case NONE:
+                return null;
+            case ASSIGN: {
+                Token name = token();
+                return resolved(new Expr.Assign(name, expression()));
+            }
+            case BINARY: {
+                Expr left = expression();
+                Token operator = token();
+                return new Expr.Binary(left, operator, expression());
+            }
+            case CALL: {
+                Expr callee = expression();
+                Token paren = token();
+
+                int count = varint();
+                List<Expr> arguments = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    arguments.add(expression());
+                }
+
+                return new Expr.Call(callee, paren, arguments);
+            }
+            case GET: {
+                Expr object = expression();
+                return new Expr.Get(object, token());
+            }
+            case GROUPING:
+                return new Expr.Grouping(expression());
+            case LITERAL:
+                return new Expr.Literal(literal());
+            case LOGICAL: {
+                Expr left = expression();
+                Token operator = token();
+                return new Expr.Logical(left, operator, expression());
+            }
+            case SET: {
+                Expr object = expression();
+                Token name = token();
+                return new Expr.Set(object, name, expression());
+            }
+            case SUPER: {
+                Token keyword = token();
+                return resolved(new Expr.Super(keyword, token()));
+            }
+            case THIS:
+                return resolved(new Expr.This(token()));
+            case UNARY: {
+                Token operator = token();
+                return new Expr.Unary(operator, expression());
+            }
+            case VARIABLE:
+                return resolved(new Expr.Variable(token()));
+            default:
+                throw new IOException("Unknown expression tag " + tag + ".");
+        }
+    }
+
+    private <T extends Expr.Resolvable> T resolved(T expr) throws IOException {
+        int depth = varint() - 1;
+        int slot = varint();
+
+        if (depth >= 0)
+            expr.resolve(depth, slot);
+
+        return expr;
+    }
+
+    private Token token() throws IOException {
+        TokenType type = TOKEN_TYPES[varint()];
+        String lexeme = lexemes[type.ordinal()];
+
+        if (lexeme == null || !hasFixedLexeme(type)) {
+            lexeme = string();
+            lexemes[type.ordinal()] = lexeme;
+        }
+
+        Object literal = hasLiteral(type) ? literal() : null;
+
+        int delta = varint();
+        line += delta >>> 1 ^ -(delta & 1);
+        return new Token(type, lexeme, literal, line);
+    }
+
+    private String string() throws IOException {
+        int header = varint();
+
+        if ((header & 1) == 0)
+            return strings.get(header >>> 1);
+
+        byte[] bytes = new byte[header >>> 1];
+        in.readFully(bytes);
+
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+
+    private int varint() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readByte();
+            value |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    private boolean bool() throws IOException {
+        return varint() != 0;
+    }
+}
@@ -0,0 +1,543 @@
+package com.craftinginterpreters.lox.snapshot;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Environment;
+import com.craftinginterpreters.lox.interpreter.Globals;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.lexer.Token;
+import com.craftinginterpreters.lox.lexer.TokenType;
+import com.craftinginterpreters.lox.runtime.ConcatString;
+import com.craftinginterpreters.lox.runtime.LoxBoundMethod;
+import com.craftinginterpreters.lox.runtime.LoxCallable;
+import com.craftinginterpreters.lox.runtime.LoxClass;
+import com.craftinginterpreters.lox.runtime.LoxFunction;
+import com.craftinginterpreters.lox.runtime.LoxInstance;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.craftinginterpreters.lox.snapshot.Snapshot.*;
+
+/**
+ * Writes a {@link Snapshot}. The AST visitors can't throw
+ * {@link IOException}, so writes wrap it and {@link #write} unwraps it.
+ */
+final class SnapshotWriter implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+
+    private final DataOutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Stmt.Function, Integer> functions = new IdentityHashMap<>();
+    private final boolean[] spelled = new boolean[TokenType.values().length];
+    private int line = 0;
+
+    // Objects in the order they are written, and their ids.
+    private final List<Object> objects = new ArrayList<>();
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+
+    private final Map<Object, Symbol> natives = new IdentityHashMap<>();
+
+    SnapshotWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    void write(Interpreter interpreter, Collection<Stmt> prelude) throws IOException {
+        Globals globals = interpreter.getGlobals();
+
+        try {
+            out.writeInt(MAGIC);
+            varint(VERSION);
+            statements(prelude);
+
+            // Natives aren't written, only the names of the globals that
+            // hold them.
+            int defined = 0;
+            for (int i = 0; i < globals.size(); i++) {
+                Globals.Cell cell = globals.cell(i);
+
+                if (cell.isDefined()) {
+                    defined++;
+
+                    if (isNative(cell.getValue()))
+                        natives.putIfAbsent(cell.getValue(), cell.getName());
+                }
+            }
+
+            for (int i = 0; i < globals.size(); i++) {
+                Globals.Cell cell = globals.cell(i);
+
+                if (cell.isDefined())
+                    find(cell.getValue());
+            }
+
+            // Finding an object's contents can find more objects.
+            for (int i = 0; i < objects.size(); i++) {
+                findContents(objects.get(i));
+            }
+
+            varint(objects.size());
+            for (Object object : objects) {
+                header(object);
+            }
+
+            for (Object object : objects) {
+                contents(object);
+            }
+
+            varint(defined);
+            for (int i = 0; i < globals.size(); i++) {
+                Globals.Cell cell = globals.cell(i);
+
+                if (cell.isDefined()) {
+                    string(cell.getName().getName());
+                    value(cell.getValue());
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isNative(Object value) {
+        return value instanceof LoxCallable
+                && !(value instanceof LoxFunction || value instanceof LoxClass || value instanceof LoxBoundMethod);
+    }
+
+    /**
+     * Gives {@code value} an id if it is an object without one, after the
+     * objects it is constructed from.
+     */
+    private void find(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Double || value instanceof CharSequence)
+            return;
+
+        if (isNative(value)) {
+            if (!natives.containsKey(value))
+                throw new IllegalArgumentException("Can't snapshot " + value + ", which isn't a global.");
+
+            return;
+        }
+
+        if (ids.containsKey(value))
+            return;
+
+        if (value instanceof Environment environment) {
+            find(environment.getEnclosing());
+        } else if (value instanceof LoxFunction function) {
+            if (!functions.containsKey(function.getDeclaration()))
+                throw new IllegalArgumentException("Can't snapshot " + function + ", which isn't declared in the prelude.");
+
+            find(function.getClosure());
+        } else if (value instanceof LoxClass clazz) {
+            find(clazz.getSuperClass());
+        } else if (value instanceof LoxInstance instance) {
+            find(instance.getShape().getLoxClass());
+        } else if (value instanceof LoxBoundMethod method) {
+            find(method.getMethod());
+            find(method.getReceiver());
+        } else {
+            throw new IllegalArgumentException("Can't snapshot " + value + ".");
+        }
+
+        ids.put(value, objects.size());
+        objects.add(value);
+    }
+
+    private void findContents(Object object) {
+        if (object instanceof Environment environment) {
+            for (int slot = 0; slot < environment.definedCount(); slot++) {
+                find(environment.get(slot));
+            }
+        } else if (object instanceof LoxClass clazz) {
+            clazz.getMethods().forEach((name, method) -> find(method));
+        } else if (object instanceof LoxInstance instance) {
+            for (int slot = 0; slot < instance.getShape().size(); slot++) {
+                find(instance.getField(slot));
+            }
+        }
+    }
+
+    /**
+     * Writes what {@code object} is constructed from.
+     */
+    private void header(Object object) {
+        if (object instanceof Environment environment) {
+            varint(ENVIRONMENT);
+            optionalId(environment.getEnclosing());
+            varint(environment.size());
+        } else if (object instanceof LoxFunction function) {
+            varint(FUNCTION);
+            varint(functions.get(function.getDeclaration()));
+            optionalId(function.getClosure());
+            bool(function.isInitializer());
+        } else if (object instanceof LoxClass clazz) {
+            varint(CLASS);
+            string(clazz.getName());
+            optionalId(clazz.getSuperClass());
+        } else if (object instanceof LoxInstance instance) {
+            varint(INSTANCE);
+            varint(ids.get(instance.getShape().getLoxClass()));
+        } else if (object instanceof LoxBoundMethod method) {
+            varint(BOUND_METHOD);
+            varint(ids.get(method.getMethod()));
+            varint(ids.get(method.getReceiver()));
+        }
+    }
+
+    private void contents(Object object) {
+        if (object instanceof Environment environment) {
+            varint(environment.definedCount());
+
+            for (int slot = 0; slot < environment.definedCount(); slot++) {
+                value(environment.get(slot));
+            }
+        } else if (object instanceof LoxClass clazz) {
+            varint(clazz.getMethods().size());
+            clazz.getMethods().forEach((name, method) -> {
+                string(name.getName());
+                varint(ids.get(method));
+            });
+        } else if (object instanceof LoxInstance instance) {
+            Symbol[] fields = instance.getShape().getFields();
+            varint(fields.length);
+
+            for (int slot = 0; slot < fields.length; slot++) {
+                string(fields[slot].getName());
+                value(instance.getField(slot));
+            }
+        }
+    }
+
+    private void optionalId(Object object) {
+        varint(object == null ? 0 : ids.get(object) + 1);
+    }
+
+    private void value(Object value) {
+        if (value == null) {
+            varint(NIL);
+        } else if (value instanceof Boolean bool) {
+            varint(bool ? TRUE : FALSE);
+        } else if (value instanceof Double number) {
+            varint(NUMBER);
+            number(number);
+        } else if (value instanceof CharSequence) {
+            varint(STRING);
+            string(ConcatString.flatten(value).toString());
+        } else if (natives.containsKey(value)) {
+            varint(NATIVE);
+            string(natives.get(value).getName());
+        } else {
+            varint(OBJECT);
+            varint(ids.get(value));
+        }
+    }
+
+    private void statements(Collection<Stmt> statements) {
+        varint(statements.size());
+
+        for (Stmt statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    private void statement(Stmt statement) {
+        if (statement == null)
+            varint(NONE);
+        else
+            statement.accept(this);
+    }
+
+    private void expression(Expr expression) {
+        if (expression == null)
+            varint(NONE);
+        else
+            expression.accept(this);
+    }
+
+    /**
+     * Writes a token. Keywords and punctuation are always spelled the same,
+     * so their lexeme is only written the first time, and lines are written
+     * as the difference from the previous token's.
+     */
+    private void token(Token token) {
+        TokenType type = token.type();
+        varint(type.ordinal());
+
+        if (!hasFixedLexeme(type) || !spelled[type.ordinal()]) {
+            string(token.lexeme());
+            spelled[type.ordinal()] = true;
+        }
+
+        if (hasLiteral(type))
+            value(token.literal());
+
+        int delta = token.line() - line;
+        varint(delta << 1 ^ delta >> 31);
+        line = token.line();
+    }
+
+    /**
+     * Writes a local's resolution; depth -1, for a global, is written as 0.
+     */
+    private void resolution(int depth, int slot) {
+        varint(depth + 1);
+        varint(slot);
+    }
+
+    private void function(Stmt.Function function) {
+        functions.put(function, functions.size());
+
+        token(function.getName());
+        varint(function.getParams().size());
+        for (Token param : function.getParams()) {
+            token(param);
+        }
+
+        varint(function.getFrameSize());
+        statements(function.getBody());
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        varint(BLOCK);
+        varint(stmt.getFrameSize());
+        statements(stmt.getStatements());
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        varint(CLASS_STMT);
+        token(stmt.getName());
+        expression(stmt.getSuperclass());
+
+        varint(stmt.getMethods().size());
+        for (Stmt.Function method : stmt.getMethods()) {
+            function(method);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        varint(EXPRESSION);
+        expression(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        varint(FUNCTION_STMT);
+        function(stmt);
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        varint(IF);
+        expression(stmt.getCondition());
+        statement(stmt.getThenBranch());
+        statement(stmt.getElseBranch());
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        varint(PRINT);
+        expression(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        varint(RETURN);
+        token(stmt.getKeyword());
+        expression(stmt.getValue());
+        bool(stmt.isTailCall());
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        varint(VAR);
+        token(stmt.getName());
+        expression(stmt.getInitializer());
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        varint(WHILE);
+        expression(stmt.getCondition());
+        statement(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        varint(ASSIGN);
+        token(expr.getName());
+        expression(expr.getValue());
+        resolution(expr.getDepth(), expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        varint(BINARY);
+        expression(expr.getLeft());
+        token(expr.getOperator());
+        expression(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        varint(CALL);
+        expression(expr.getCallee());
+        token(expr.getParen());
+
+        varint(expr.getArguments().size());
+        for (Expr argument : expr.getArguments()) {
+            expression(argument);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        varint(GET);
+        expression(expr.getObject());
+        token(expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        varint(GROUPING);
+        expression(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        varint(LITERAL);
+        value(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        varint(LOGICAL);
+        expression(expr.getLeft());
+        token(expr.getOperator());
+        expression(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        varint(SET);
+        expression(expr.getObject());
+        token(expr.getName());
+        expression(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        varint(SUPER);
+        token(expr.getKeyword());
+        token(expr.getMethod());
+        resolution(expr.getDepth(), expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        varint(THIS);
+        token(expr.getKeyword());
+        resolution(expr.getDepth(), expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        varint(UNARY);
+        token(expr.getOperator());
+        expression(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        varint(VARIABLE);
+        token(expr.getName());
+        resolution(expr.getDepth(), expr.getSlot());
+        return null;
+    }
+
+    /**
+     * Writes a string the first time as its length and its UTF-8 bytes, and
+     * after that as its index, with the low bit telling the two apart.
+     */
+    private void string(String string) {
+        Integer index = strings.get(string);
+
+        if (index != null) {
+            varint(index << 1);
+            return;
+        }
+
+        strings.put(string, strings.size());
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        varint(bytes.length << 1 | 1);
+
+        try {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a non-negative integer seven bits at a time, low bits first.
+     */
+    private void varint(int value) {
+        try {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            out.writeByte(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void number(double value) {
+        try {
+            out.writeDouble(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void bool(boolean value) {
+        varint(value ? 1 : 0);
+    }
+}
@@ -4,13 +4,28 @@ import com.craftinginterpreters.lox.lexer.Token;
 
 public class RuntimeError extends RuntimeException {
     private final Token token;
+    private final int line;
 
     public RuntimeError(Token token, String message) {
         super(message);
         this.token = token;
+        this.line = token.line();
+    }
+
+    /**
+     * For backends that no longer have the token at hand, only its line.
+     */
+    public RuntimeError(int line, String message) {
+        super(message);
+        this.token = null;
+        this.line = line;
     }
 
     public Token getToken() {
         return token;
     }
+
+    public int getLine() {
+        return line;
+    }
 }
@@ -0,0 +1,124 @@
+package com.craftinginterpreters.lox.util;
+
+import com.craftinginterpreters.lox.lexer.Symbol;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * A map from symbols to values, for the tables of names the runtime looks
+ * things up in: fields, methods and globals. Keys are found by their id and
+ * compared by identity, with linear probing in a power-of-two table, so a
+ * lookup neither hashes nor compares strings.
+ */
+public final class SymbolMap<V> {
+
+    private Symbol[] keys;
+    private Object[] values;
+    private int size;
+
+    public SymbolMap() {
+        this(8);
+    }
+
+    private SymbolMap(int capacity) {
+        this.keys = new Symbol[capacity];
+        this.values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Symbol key) {
+        int mask = keys.length - 1;
+
+        for (int i = key.getId() & mask; ; i = (i + 1) & mask) {
+            Symbol candidate = keys[i];
+
+            if (candidate == key)
+                return (V) values[i];
+
+            if (candidate == null)
+                return null;
+        }
+    }
+
+    public boolean containsKey(Symbol key) {
+        return keys[indexOf(key)] == key;
+    }
+
+    public void put(Symbol key, V value) {
+        int index = indexOf(key);
+
+        if (keys[index] == null) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                index = indexOf(key);
+            }
+
+            keys[index] = key;
+            size++;
+        }
+
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Symbol, V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null)
+                action.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    public SymbolMap<V> copy() {
+        SymbolMap<V> copy = new SymbolMap<>(0);
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.values = Arrays.copyOf(values, values.length);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * The index of {@code key}, or of the empty slot where it would go.
+     */
+    private int indexOf(Symbol key) {
+        int mask = keys.length - 1;
+        int i = key.getId() & mask;
+
+        while (keys[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    private void grow() {
+        Symbol[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new Symbol[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1)
+                builder.append(", ");
+
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.craftinginterpreters.lox.vm;
+
+/**
+ * A method read off an instance. Calling it puts the receiver in the
+ * callee's stack slot, where the method expects it.
+ */
+final class BoundMethod {
+
+    final VmInstance receiver;
+    final Closure method;
+
+    BoundMethod(VmInstance receiver, Closure method) {
+        this.receiver = receiver;
+        this.method = method;
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
@@ -0,0 +1,594 @@
+package com.craftinginterpreters.lox.vm;
+
+import com.craftinginterpreters.lox.ast.Expr;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.lexer.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.craftinginterpreters.lox.vm.OpCode.*;
+
+/**
+ * Lowers a resolved AST to bytecode for the {@link VirtualMachine}.
+ * <p>
+ * Scopes are laid out in one of two ways. A scope that declares a function
+ * or class somewhere inside it may be captured, so it gets a heap
+ * {@link Frame} and the resolver's depth and slot are used as they are,
+ * skipping the scopes that have no frame. Every other scope keeps its locals
+ * on the operand stack, where a variable access is a single indexed load.
+ */
+class BytecodeCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    private final VirtualMachine vm;
+
+    // Every local scope being compiled, across function boundaries, in the
+    // same order as the resolver saw them.
+    private final List<Scope> scopes = new ArrayList<>();
+
+    private FunctionState function;
+
+    private static final class Scope {
+        private final boolean heap;
+        private final int stackBase;
+        private int declared;
+
+        private Scope(boolean heap, int stackBase) {
+            this.heap = heap;
+            this.stackBase = stackBase;
+        }
+    }
+
+    private static final class FunctionState {
+        private final FunctionState enclosing;
+        private final String name;
+        private final int arity;
+        private final boolean method;
+        private final boolean initializer;
+        private final int scopeIndex;
+
+        private int[] code = new int[64];
+        private int[] lines = new int[64];
+        private int count;
+        private int line;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndices = new HashMap<>();
+
+        private int stackLocals;
+        private int stackDepth;
+        private int maxStack;
+
+        private FunctionState(FunctionState enclosing, String name, int arity, boolean method, boolean initializer, int scopeIndex) {
+            this.enclosing = enclosing;
+            this.name = name;
+            this.arity = arity;
+            this.method = method;
+            this.initializer = initializer;
+            this.scopeIndex = scopeIndex;
+        }
+
+        private Proto build(int frameSize) {
+            long[] values = new long[constants.size()];
+            Object[] refs = new Object[constants.size()];
+
+            for (int i = 0; i < values.length; i++) {
+                Object constant = constants.get(i);
+                values[i] = NanBox.tag(constant);
+
+                if (values[i] == NanBox.OBJ)
+                    refs[i] = constant;
+            }
+
+            return new Proto(
+                name,
+                arity,
+                method,
+                Arrays.copyOf(code, count),
+                Arrays.copyOf(lines, count),
+                values,
+                refs,
+                frameSize,
+                maxStack
+            );
+        }
+    }
+
+    BytecodeCompiler(VirtualMachine vm) {
+        this.vm = vm;
+    }
+
+    Proto compile(Collection<Stmt> statements) {
+        function = new FunctionState(null, "script", 0, false, false, -1);
+
+        for (Stmt statement : statements) {
+            compile(statement);
+        }
+
+        emit(NIL, 0, 1);
+        emit(RETURN, 0, -1);
+
+        return function.build(-1);
+    }
+
+    private void compile(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private void compile(Expr expr) {
+        expr.accept(this);
+    }
+
+    private Proto function(Stmt.Function stmt, boolean method, boolean initializer) {
+        boolean heap = createsClosures(stmt.getBody());
+        int arity = stmt.getParams().size();
+
+        function = new FunctionState(function, stmt.getName().lexeme(), arity, method, initializer, scopes.size());
+
+        // A method's receiver is its first local, before the parameters.
+        int parameters = method ? arity + 1 : arity;
+
+        Scope scope = new Scope(heap, 0);
+        scope.declared = parameters;
+        scopes.add(scope);
+
+        // The call copies the arguments of a heap scope into its frame and
+        // leaves those of a stack scope where they are, as the first locals.
+        if (!heap) {
+            function.stackLocals = parameters;
+            function.stackDepth = parameters;
+            function.maxStack = parameters;
+        }
+
+        for (Stmt statement : stmt.getBody()) {
+            compile(statement);
+        }
+
+        emitReturn();
+
+        scopes.remove(scopes.size() - 1);
+
+        Proto proto = function.build(heap ? stmt.getFrameSize() : -1);
+        function = function.enclosing;
+        return proto;
+    }
+
+    private static boolean createsClosures(Collection<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (createsClosures(statement))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static boolean createsClosures(Stmt stmt) {
+        if (stmt instanceof Stmt.Function || stmt instanceof Stmt.Class)
+            return true;
+
+        if (stmt instanceof Stmt.Block block)
+            return createsClosures(block.getStatements());
+
+        if (stmt instanceof Stmt.If ifStmt)
+            return createsClosures(ifStmt.getThenBranch())
+                || ifStmt.getElseBranch() != null && createsClosures(ifStmt.getElseBranch());
+
+        if (stmt instanceof Stmt.While whileStmt)
+            return createsClosures(whileStmt.getBody());
+
+        return false;
+    }
+
+    private void emit(int opcode, int operand, int stackEffect) {
+        if (operand > MAX_OPERAND)
+            throw new IllegalStateException("Operand " + operand + " of function '" + function.name + "' is too large.");
+
+        emitWord(encode(opcode, operand));
+
+        function.stackDepth += stackEffect;
+        function.maxStack = Math.max(function.maxStack, function.stackDepth);
+    }
+
+    private void emitWord(int word) {
+        if (function.count == function.code.length) {
+            function.code = Arrays.copyOf(function.code, function.count * 2);
+            function.lines = Arrays.copyOf(function.lines, function.count * 2);
+        }
+
+        function.code[function.count] = word;
+        function.lines[function.count] = function.line;
+        function.count++;
+    }
+
+    private int emitJump(int opcode, int stackEffect) {
+        emit(opcode, 0, stackEffect);
+        return function.count - 1;
+    }
+
+    private void patchJump(int jump) {
+        function.code[jump] = encode(function.code[jump] & 0xFF, function.count);
+    }
+
+    private void emitReturn() {
+        if (function.initializer) {
+            // An initializer always returns its receiver.
+            load(scopes.size() - 1 - function.scopeIndex, 0);
+        } else {
+            emit(NIL, 0, 1);
+        }
+
+        emit(RETURN, 0, -1);
+    }
+
+    private int constant(Object value) {
+        Integer index = function.constantIndices.get(value);
+
+        if (index == null) {
+            index = function.constants.size();
+            function.constants.add(value);
+            function.constantIndices.put(value, index);
+        }
+
+        return index;
+    }
+
+    private int global(Token name) {
+        return constant(vm.global(name.lexeme()));
+    }
+
+    private void line(Token token) {
+        function.line = token.line();
+    }
+
+    /**
+     * The number of frames between the innermost scope and the one
+     * {@code depth} scopes out.
+     */
+    private int hops(int depth) {
+        int hops = 0;
+
+        for (int i = scopes.size() - 1; i > scopes.size() - 1 - depth; i--) {
+            if (scopes.get(i).heap)
+                hops++;
+        }
+
+        return hops;
+    }
+
+    private void load(int depth, int slot) {
+        Scope scope = scopes.get(scopes.size() - 1 - depth);
+
+        if (scope.heap) {
+            emit(GET_FRAME, hops(depth), 1);
+            emitWord(slot);
+        } else {
+            emit(GET_LOCAL, scope.stackBase + slot, 1);
+        }
+    }
+
+    private void store(int depth, int slot) {
+        Scope scope = scopes.get(scopes.size() - 1 - depth);
+
+        if (scope.heap) {
+            emit(SET_FRAME, hops(depth), 0);
+            emitWord(slot);
+        } else {
+            emit(SET_LOCAL, scope.stackBase + slot, 0);
+        }
+    }
+
+    /**
+     * Defines a variable from the value on top of the stack.
+     */
+    private void define(Token name) {
+        if (scopes.isEmpty()) {
+            line(name);
+            emit(DEFINE_GLOBAL, global(name), -1);
+            return;
+        }
+
+        Scope scope = scopes.get(scopes.size() - 1);
+        int slot = scope.declared++;
+
+        if (scope.heap) {
+            emit(DEFINE_FRAME, slot, -1);
+        } else {
+            // The value is already in the local's stack slot.
+            function.stackLocals++;
+        }
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        Scope scope = new Scope(createsClosures(stmt.getStatements()), function.stackLocals);
+        scopes.add(scope);
+
+        if (scope.heap)
+            emit(PUSH_FRAME, stmt.getFrameSize(), 0);
+
+        for (Stmt statement : stmt.getStatements()) {
+            compile(statement);
+        }
+
+        scopes.remove(scopes.size() - 1);
+
+        if (scope.heap) {
+            emit(POP_FRAME, 0, 0);
+        } else if (scope.declared > 0) {
+            emit(POPN, scope.declared, -scope.declared);
+            function.stackLocals -= scope.declared;
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        Expr.Variable superclass = stmt.getSuperclass();
+        int name = constant(stmt.getName().lexeme());
+
+        if (superclass != null) {
+            compile(superclass);
+            line(superclass.getName());
+            emit(SUBCLASS, name, 0);
+
+            emit(PUSH_SUPER, 0, 0);
+            Scope scope = new Scope(true, 0);
+            scope.declared = 1;
+            scopes.add(scope);
+        } else {
+            emit(CLASS, name, 1);
+        }
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            Proto proto = function(method, true, method.getName().lexeme().equals("init"));
+
+            emit(CLOSURE, constant(proto), 1);
+            emit(METHOD, constant(method.getName().symbol()), -1);
+        }
+
+        if (superclass != null) {
+            scopes.remove(scopes.size() - 1);
+            emit(POP_FRAME, 0, 0);
+        }
+
+        define(stmt.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        compile(stmt.getExpression());
+        emit(POP, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        Proto proto = function(stmt, false, false);
+
+        emit(CLOSURE, constant(proto), 1);
+        define(stmt.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        compile(stmt.getCondition());
+        int elseJump = emitJump(POP_JUMP_IF_FALSE, -1);
+
+        compile(stmt.getThenBranch());
+
+        if (stmt.getElseBranch() != null) {
+            int endJump = emitJump(JUMP, 0);
+            patchJump(elseJump);
+            compile(stmt.getElseBranch());
+            patchJump(endJump);
+        } else {
+            patchJump(elseJump);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        compile(stmt.getExpression());
+        emit(PRINT, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        line(stmt.getKeyword());
+
+        if (stmt.getValue() != null) {
+            compile(stmt.getValue());
+            emit(RETURN, 0, -1);
+        } else {
+            emitReturn();
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        if (stmt.getInitializer() != null) {
+            compile(stmt.getInitializer());
+        } else {
+            emit(OpCode.NIL, 0, 1);
+        }
+
+        define(stmt.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        int start = function.count;
+
+        compile(stmt.getCondition());
+        int exitJump = emitJump(POP_JUMP_IF_FALSE, -1);
+
+        compile(stmt.getBody());
+        emit(JUMP, start, 0);
+
+        patchJump(exitJump);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        compile(expr.getValue());
+        line(expr.getName());
+
+        if (expr.getDepth() < 0) {
+            emit(SET_GLOBAL, global(expr.getName()), 0);
+        } else {
+            store(expr.getDepth(), expr.getSlot());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        compile(expr.getLeft());
+        compile(expr.getRight());
+        line(expr.getOperator());
+
+        int opcode = switch (expr.getOperator().type()) {
+            case PLUS -> ADD;
+            case MINUS -> SUBTRACT;
+            case STAR -> MULTIPLY;
+            case SLASH -> DIVIDE;
+            case GREATER -> GREATER;
+            case GREATER_EQUAL -> GREATER_EQUAL;
+            case LESS -> LESS;
+            case LESS_EQUAL -> LESS_EQUAL;
+            case EQUAL_EQUAL -> EQUAL;
+            case BANG_EQUAL -> NOT_EQUAL;
+            default -> throw new IllegalArgumentException("Unexpected binary operator: " + expr.getOperator());
+        };
+
+        emit(opcode, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        compile(expr.getCallee());
+
+        for (Expr argument : expr.getArguments()) {
+            compile(argument);
+        }
+
+        int count = expr.getArguments().size();
+        line(expr.getParen());
+        emit(CALL, count, -count);
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        compile(expr.getObject());
+        line(expr.getName());
+        emit(GET_PROPERTY, constant(expr.getName().symbol()), 0);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        compile(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        Object value = expr.getValue();
+
+        if (value == null) {
+            emit(OpCode.NIL, 0, 1);
+        } else if (value instanceof Boolean b) {
+            emit(b ? OpCode.TRUE : OpCode.FALSE, 0, 1);
+        } else {
+            emit(CONSTANT, constant(value), 1);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        compile(expr.getLeft());
+
+        int opcode = switch (expr.getOperator().type()) {
+            case OR -> JUMP_IF_TRUE_OR_POP;
+            case AND -> JUMP_IF_FALSE_OR_POP;
+            default -> throw new IllegalArgumentException("Unexpected logical operator: " + expr.getOperator());
+        };
+
+        int endJump = emitJump(opcode, -1);
+        compile(expr.getRight());
+        patchJump(endJump);
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        compile(expr.getObject());
+        compile(expr.getValue());
+        line(expr.getName());
+        emit(SET_PROPERTY, constant(expr.getName().symbol()), -1);
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        // "this" is always bound in the scope just inside "super".
+        load(expr.getDepth() - 1, 0);
+        load(expr.getDepth(), 0);
+        line(expr.getMethod());
+        emit(GET_SUPER, constant(expr.getMethod().symbol()), -1);
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        load(expr.getDepth(), expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        compile(expr.getRight());
+        line(expr.getOperator());
+
+        int opcode = switch (expr.getOperator().type()) {
+            case BANG -> NOT;
+            case MINUS -> NEGATE;
+            default -> throw new IllegalArgumentException("Unexpected unary operator: " + expr.getOperator());
+        };
+
+        emit(opcode, 0, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        line(expr.getName());
+
+        if (expr.getDepth() < 0) {
+            emit(GET_GLOBAL, global(expr.getName()), 1);
+        } else {
+            load(expr.getDepth(), expr.getSlot());
+        }
+
+        return null;
+    }
+}
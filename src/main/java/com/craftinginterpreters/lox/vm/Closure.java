@@ -0,0 +1,17 @@
+package com.craftinginterpreters.lox.vm;
+
+final class Closure {
+
+    final Proto proto;
+    final Frame env;
+
+    Closure(Proto proto, Frame env) {
+        this.proto = proto;
+        this.env = env;
+    }
+
+    @Override
+    public String toString() {
+        return proto.toString();
+    }
+}
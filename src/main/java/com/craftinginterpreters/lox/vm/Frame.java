@@ -0,0 +1,18 @@
+package com.craftinginterpreters.lox.vm;
+
+/**
+ * A heap-allocated scope. Only scopes that closures can capture get one;
+ * all other locals live on the operand stack.
+ */
+final class Frame {
+
+    final Frame enclosing;
+    final long[] values;
+    final Object[] refs;
+
+    Frame(Frame enclosing, int size) {
+        this.enclosing = enclosing;
+        this.values = new long[size];
+        this.refs = new Object[size];
+    }
+}
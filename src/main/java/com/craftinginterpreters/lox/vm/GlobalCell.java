@@ -0,0 +1,18 @@
+package com.craftinginterpreters.lox.vm;
+
+/**
+ * The storage of one global variable. Cells are created when code referring
+ * to the name is compiled and go into the constant pool, so a global access
+ * at runtime is a field read instead of a map lookup.
+ */
+final class GlobalCell {
+
+    final String name;
+    boolean defined;
+    long value;
+    Object ref;
+
+    GlobalCell(String name) {
+        this.name = name;
+    }
+}
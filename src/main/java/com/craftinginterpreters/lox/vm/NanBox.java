@@ -0,0 +1,79 @@
+package com.craftinginterpreters.lox.vm;
+
+import com.craftinginterpreters.lox.runtime.ConcatString;
+
+/**
+ * Encodes Lox values in a {@code long}. Numbers are stored as their IEEE 754
+ * bits; everything else lives in a range of quiet NaNs that
+ * {@link Double#doubleToLongBits} never produces. References are tagged
+ * {@link #OBJ} and kept in a parallel {@code Object[]}.
+ */
+final class NanBox {
+
+    private static final long QUIET_NAN = 0x7ffc000000000000L;
+
+    static final long NIL = QUIET_NAN | 1;
+    static final long FALSE = QUIET_NAN | 2;
+    static final long TRUE = QUIET_NAN | 3;
+    static final long OBJ = QUIET_NAN | 4;
+
+    private NanBox() { }
+
+    static boolean isNumber(long value) {
+        return (value & QUIET_NAN) != QUIET_NAN;
+    }
+
+    static long number(double value) {
+        // Canonicalizes NaN so that it can't collide with the tags.
+        return Double.doubleToLongBits(value);
+    }
+
+    static double asNumber(long value) {
+        return Double.longBitsToDouble(value);
+    }
+
+    static long bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    static boolean isFalsey(long value) {
+        return value == NIL || value == FALSE;
+    }
+
+    static boolean isEqual(long a, Object aRef, long b, Object bRef) {
+        if (a == OBJ && b == OBJ)
+            return ConcatString.flatten(aRef).equals(ConcatString.flatten(bRef));
+
+        return a == b;
+    }
+
+    /**
+     * The tag for {@code value}; for {@link #OBJ} the caller stores the
+     * reference itself.
+     */
+    static long tag(Object value) {
+        if (value == null)
+            return NIL;
+
+        if (value instanceof Boolean b)
+            return bool(b);
+
+        if (value instanceof Double d)
+            return number(d);
+
+        return OBJ;
+    }
+
+    static Object toObject(long value, Object ref) {
+        if (isNumber(value))
+            return asNumber(value);
+
+        if (value == OBJ)
+            return ref;
+
+        if (value == NIL)
+            return null;
+
+        return value == TRUE;
+    }
+}
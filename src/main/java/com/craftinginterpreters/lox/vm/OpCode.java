@@ -0,0 +1,68 @@
+package com.craftinginterpreters.lox.vm;
+
+/**
+ * The instruction set of the {@link VirtualMachine}.
+ * <p>
+ * Every instruction is a single {@code int}: the opcode in the low byte and
+ * an unsigned 24-bit operand above it. {@link #GET_FRAME} and {@link #SET_FRAME}
+ * are followed by one extra word holding the slot.
+ */
+final class OpCode {
+
+    static final int CONSTANT = 0;
+    static final int NIL = 1;
+    static final int TRUE = 2;
+    static final int FALSE = 3;
+    static final int POP = 4;
+    static final int POPN = 5;
+
+    static final int GET_LOCAL = 6;
+    static final int SET_LOCAL = 7;
+    static final int GET_FRAME = 8;
+    static final int SET_FRAME = 9;
+    static final int DEFINE_FRAME = 10;
+    static final int GET_GLOBAL = 11;
+    static final int SET_GLOBAL = 12;
+    static final int DEFINE_GLOBAL = 13;
+    static final int PUSH_FRAME = 14;
+    static final int POP_FRAME = 15;
+
+    static final int GET_PROPERTY = 16;
+    static final int SET_PROPERTY = 17;
+    static final int GET_SUPER = 18;
+
+    static final int EQUAL = 19;
+    static final int NOT_EQUAL = 20;
+    static final int GREATER = 21;
+    static final int GREATER_EQUAL = 22;
+    static final int LESS = 23;
+    static final int LESS_EQUAL = 24;
+    static final int ADD = 25;
+    static final int SUBTRACT = 26;
+    static final int MULTIPLY = 27;
+    static final int DIVIDE = 28;
+    static final int NOT = 29;
+    static final int NEGATE = 30;
+
+    static final int PRINT = 31;
+    static final int JUMP = 32;
+    static final int POP_JUMP_IF_FALSE = 33;
+    static final int JUMP_IF_FALSE_OR_POP = 34;
+    static final int JUMP_IF_TRUE_OR_POP = 35;
+
+    static final int CALL = 36;
+    static final int RETURN = 37;
+    static final int CLOSURE = 38;
+    static final int CLASS = 39;
+    static final int SUBCLASS = 40;
+    static final int PUSH_SUPER = 41;
+    static final int METHOD = 42;
+
+    static final int MAX_OPERAND = 0xFFFFFF;
+
+    private OpCode() { }
+
+    static int encode(int opcode, int operand) {
+        return opcode | operand << 8;
+    }
+}
@@ -0,0 +1,50 @@
+package com.craftinginterpreters.lox.vm;
+
+/**
+ * A compiled function: its code, a line for every instruction and its
+ * constant pool.
+ */
+final class Proto {
+
+    final String name;
+    final int arity;
+
+    /**
+     * Whether the function is a method, which takes its receiver in the
+     * callee's stack slot, ahead of the arguments.
+     */
+    final boolean method;
+
+    final int[] code;
+    final int[] lines;
+    final long[] constants;
+    final Object[] constantRefs;
+
+    /**
+     * The size of the frame allocated on every call, or -1 if the
+     * function's own scope lives on the operand stack.
+     */
+    final int frameSize;
+
+    /**
+     * The most operand stack slots a call uses, counted from its arguments.
+     */
+    final int maxStack;
+
+    Proto(String name, int arity, boolean method, int[] code, int[] lines, long[] constants, Object[] constantRefs, int frameSize, int maxStack) {
+        this.name = name;
+        this.arity = arity;
+        this.method = method;
+        this.code = code;
+        this.lines = lines;
+        this.constants = constants;
+        this.constantRefs = constantRefs;
+        this.frameSize = frameSize;
+        this.maxStack = maxStack;
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + name + ">";
+    }
+}
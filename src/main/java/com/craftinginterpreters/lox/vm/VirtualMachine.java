@@ -0,0 +1,493 @@
+package com.craftinginterpreters.lox.vm;
+
+import com.craftinginterpreters.lox.Backend;
+import com.craftinginterpreters.lox.ErrorReporter;
+import com.craftinginterpreters.lox.Lox;
+import com.craftinginterpreters.lox.ast.Stmt;
+import com.craftinginterpreters.lox.interpreter.Interpreter;
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.runtime.ConcatString;
+import com.craftinginterpreters.lox.runtime.BufferedOutput;
+import com.craftinginterpreters.lox.runtime.Output;
+import com.craftinginterpreters.lox.util.RuntimeError;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.craftinginterpreters.lox.vm.NanBox.*;
+
+/**
+ * Runs programs compiled to bytecode by {@link BytecodeCompiler}.
+ * <p>
+ * Values live unboxed on a {@code long[]} operand stack (see
+ * {@link NanBox}), with references in a parallel {@code Object[]}, so
+ * arithmetic on locals never allocates. Lox calls don't recurse on the Java
+ * stack: each call pushes a record onto the VM's own call stack and the
+ * dispatch loop continues in the callee. Both stacks live on the heap and
+ * grow on demand, so recursion depth doesn't depend on the thread's stack
+ * size.
+ */
+public class VirtualMachine implements Backend {
+
+    public static final int DEFAULT_MAX_CALL_DEPTH = 1 << 16;
+
+    private final int maxCallDepth;
+    private final ErrorReporter reporter;
+    private final Output output;
+    private final Map<String, GlobalCell> globals = new HashMap<>();
+
+    private long[] stack = new long[256];
+    private Object[] refs = new Object[256];
+
+    private Closure[] callClosures = new Closure[64];
+    private int[] callPcs = new int[64];
+    private int[] callBases = new int[64];
+    private Frame[] callFrames = new Frame[64];
+
+    public VirtualMachine() {
+        this(DEFAULT_MAX_CALL_DEPTH);
+    }
+
+    /**
+     * Creates a VM that reports a stack overflow once calls nest
+     * {@code maxCallDepth} deep. With a limit of 0 the call stack grows
+     * until the heap runs out.
+     */
+    public VirtualMachine(int maxCallDepth) {
+        this(maxCallDepth, Lox.REPORTER, new BufferedOutput(System.out));
+    }
+
+    /**
+     * Creates a VM as above that reports errors to {@code reporter} and
+     * prints to {@code output}.
+     */
+    public VirtualMachine(int maxCallDepth, ErrorReporter reporter, Output output) {
+        this.reporter = reporter;
+        this.output = output;
+        this.maxCallDepth = maxCallDepth > 0 ? maxCallDepth : Integer.MAX_VALUE;
+        defineNative("clock", 0, arguments -> (double) System.currentTimeMillis() / 1000.0);
+    }
+
+    private void defineNative(String name, int arity, Function<Object[], Object> body) {
+        GlobalCell cell = global(name);
+        cell.defined = true;
+        cell.value = OBJ;
+        cell.ref = new NativeFunction(arity, body);
+    }
+
+    GlobalCell global(String name) {
+        return globals.computeIfAbsent(name, GlobalCell::new);
+    }
+
+    @Override
+    public void interpret(Collection<Stmt> statements) {
+        Proto script = new BytecodeCompiler(this).compile(statements);
+
+        try {
+            run(new Closure(script, null));
+        } catch (RuntimeError error) {
+            reporter.runtimeError(error);
+        } finally {
+            // Don't keep the garbage of a failed or finished run reachable.
+            Arrays.fill(refs, null);
+            Arrays.fill(callClosures, null);
+            Arrays.fill(callFrames, null);
+        }
+    }
+
+    private void ensureStack(int size) {
+        if (size > stack.length) {
+            int capacity = Math.max(size, stack.length * 2);
+            stack = Arrays.copyOf(stack, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+    }
+
+    private void ensureCallStack(int depth) {
+        if (depth == callClosures.length) {
+            int capacity = (int) Math.min(depth * 2L, Integer.MAX_VALUE - 8);
+            callClosures = Arrays.copyOf(callClosures, capacity);
+            callPcs = Arrays.copyOf(callPcs, capacity);
+            callBases = Arrays.copyOf(callBases, capacity);
+            callFrames = Arrays.copyOf(callFrames, capacity);
+        }
+    }
+
+    private static RuntimeError error(Proto proto, int pc, String message) {
+        return new RuntimeError(proto.lines[pc - 1], message);
+    }
+
+    private void run(Closure script) {
+        Closure closure = script;
+        Proto proto = closure.proto;
+        int[] code = proto.code;
+        Frame frame = closure.env;
+
+        int pc = 0;
+        int base = 0;
+        int sp = 0;
+        int depth = 0;
+
+        ensureStack(proto.maxStack);
+        long[] stack = this.stack;
+        Object[] refs = this.refs;
+
+        for (;;) {
+            int instruction = code[pc++];
+
+            switch (instruction & 0xFF) {
+                case OpCode.CONSTANT -> {
+                    int index = instruction >>> 8;
+                    stack[sp] = proto.constants[index];
+                    refs[sp] = proto.constantRefs[index];
+                    sp++;
+                }
+                case OpCode.NIL -> stack[sp++] = NIL;
+                case OpCode.TRUE -> stack[sp++] = TRUE;
+                case OpCode.FALSE -> stack[sp++] = FALSE;
+                case OpCode.POP -> sp--;
+                case OpCode.POPN -> sp -= instruction >>> 8;
+
+                case OpCode.GET_LOCAL -> {
+                    int slot = base + (instruction >>> 8);
+                    stack[sp] = stack[slot];
+                    refs[sp] = refs[slot];
+                    sp++;
+                }
+                case OpCode.SET_LOCAL -> {
+                    int slot = base + (instruction >>> 8);
+                    stack[slot] = stack[sp - 1];
+                    refs[slot] = refs[sp - 1];
+                }
+                case OpCode.GET_FRAME -> {
+                    Frame target = frame;
+                    for (int hops = instruction >>> 8; hops > 0; hops--) {
+                        target = target.enclosing;
+                    }
+
+                    int slot = code[pc++];
+                    stack[sp] = target.values[slot];
+                    refs[sp] = target.refs[slot];
+                    sp++;
+                }
+                case OpCode.SET_FRAME -> {
+                    Frame target = frame;
+                    for (int hops = instruction >>> 8; hops > 0; hops--) {
+                        target = target.enclosing;
+                    }
+
+                    int slot = code[pc++];
+                    target.values[slot] = stack[sp - 1];
+                    target.refs[slot] = refs[sp - 1];
+                }
+                case OpCode.DEFINE_FRAME -> {
+                    int slot = instruction >>> 8;
+                    sp--;
+                    frame.values[slot] = stack[sp];
+                    frame.refs[slot] = refs[sp];
+                }
+                case OpCode.GET_GLOBAL -> {
+                    GlobalCell cell = (GlobalCell) proto.constantRefs[instruction >>> 8];
+
+                    if (!cell.defined)
+                        throw error(proto, pc, "Undefined variable '" + cell.name + "'.");
+
+                    stack[sp] = cell.value;
+                    refs[sp] = cell.ref;
+                    sp++;
+                }
+                case OpCode.SET_GLOBAL -> {
+                    GlobalCell cell = (GlobalCell) proto.constantRefs[instruction >>> 8];
+
+                    if (!cell.defined)
+                        throw error(proto, pc, "Undefined variable '" + cell.name + "'.");
+
+                    cell.value = stack[sp - 1];
+                    cell.ref = refs[sp - 1];
+                }
+                case OpCode.DEFINE_GLOBAL -> {
+                    GlobalCell cell = (GlobalCell) proto.constantRefs[instruction >>> 8];
+                    sp--;
+                    cell.defined = true;
+                    cell.value = stack[sp];
+                    cell.ref = refs[sp];
+                }
+                case OpCode.PUSH_FRAME -> frame = new Frame(frame, instruction >>> 8);
+                case OpCode.POP_FRAME -> frame = frame.enclosing;
+
+                case OpCode.GET_PROPERTY -> {
+                    if (stack[sp - 1] != OBJ || !(refs[sp - 1] instanceof VmInstance instance))
+                        throw error(proto, pc, "Only instances have properties.");
+
+                    Symbol name = (Symbol) proto.constantRefs[instruction >>> 8];
+                    Object value = instance.fields.get(name);
+
+                    if (value != null || instance.fields.containsKey(name)) {
+                        stack[sp - 1] = tag(value);
+                        refs[sp - 1] = value;
+                    } else {
+                        Closure method = instance.klass.findMethod(name);
+
+                        if (method == null)
+                            throw error(proto, pc, "Undefined property '" + name + "'.");
+
+                        refs[sp - 1] = new BoundMethod(instance, method);
+                    }
+                }
+                case OpCode.SET_PROPERTY -> {
+                    if (stack[sp - 2] != OBJ || !(refs[sp - 2] instanceof VmInstance instance))
+                        throw error(proto, pc, "Only instances have fields.");
+
+                    Symbol name = (Symbol) proto.constantRefs[instruction >>> 8];
+                    instance.fields.put(name, toObject(stack[sp - 1], refs[sp - 1]));
+
+                    sp--;
+                    stack[sp - 1] = stack[sp];
+                    refs[sp - 1] = refs[sp];
+                }
+                case OpCode.GET_SUPER -> {
+                    Symbol name = (Symbol) proto.constantRefs[instruction >>> 8];
+                    Closure method = ((VmClass) refs[sp - 1]).findMethod(name);
+
+                    if (method == null)
+                        throw error(proto, pc, "Undefined property '" + name + "'.");
+
+                    sp--;
+                    refs[sp - 1] = new BoundMethod((VmInstance) refs[sp - 1], method);
+                }
+
+                case OpCode.EQUAL -> {
+                    sp--;
+                    stack[sp - 1] = bool(isEqual(stack[sp - 1], refs[sp - 1], stack[sp], refs[sp]));
+                }
+                case OpCode.NOT_EQUAL -> {
+                    sp--;
+                    stack[sp - 1] = bool(!isEqual(stack[sp - 1], refs[sp - 1], stack[sp], refs[sp]));
+                }
+                case OpCode.GREATER -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = bool(asNumber(a) > asNumber(b));
+                }
+                case OpCode.GREATER_EQUAL -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = bool(asNumber(a) >= asNumber(b));
+                }
+                case OpCode.LESS -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = bool(asNumber(a) < asNumber(b));
+                }
+                case OpCode.LESS_EQUAL -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = bool(asNumber(a) <= asNumber(b));
+                }
+                case OpCode.ADD -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+
+                    if (isNumber(a) && isNumber(b)) {
+                        stack[--sp - 1] = number(asNumber(a) + asNumber(b));
+                    } else if (a == OBJ && b == OBJ && refs[sp - 2] instanceof CharSequence left && refs[sp - 1] instanceof CharSequence right) {
+                        refs[--sp - 1] = ConcatString.concat(left, right);
+                    } else {
+                        throw error(proto, pc, "Operands must be two numbers or two strings.");
+                    }
+                }
+                case OpCode.SUBTRACT -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = number(asNumber(a) - asNumber(b));
+                }
+                case OpCode.MULTIPLY -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = number(asNumber(a) * asNumber(b));
+                }
+                case OpCode.DIVIDE -> {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b))
+                        throw error(proto, pc, "Operands must be numbers.");
+
+                    stack[--sp - 1] = number(asNumber(a) / asNumber(b));
+                }
+                case OpCode.NOT -> stack[sp - 1] = bool(isFalsey(stack[sp - 1]));
+                case OpCode.NEGATE -> {
+                    if (!isNumber(stack[sp - 1]))
+                        throw error(proto, pc, "Operand must be a number.");
+
+                    stack[sp - 1] = number(-asNumber(stack[sp - 1]));
+                }
+
+                case OpCode.PRINT -> {
+                    sp--;
+                    output.println(Interpreter.stringify(toObject(stack[sp], refs[sp])));
+                }
+                case OpCode.JUMP -> pc = instruction >>> 8;
+                case OpCode.POP_JUMP_IF_FALSE -> {
+                    if (isFalsey(stack[--sp]))
+                        pc = instruction >>> 8;
+                }
+                case OpCode.JUMP_IF_FALSE_OR_POP -> {
+                    if (isFalsey(stack[sp - 1])) {
+                        pc = instruction >>> 8;
+                    } else {
+                        sp--;
+                    }
+                }
+                case OpCode.JUMP_IF_TRUE_OR_POP -> {
+                    if (!isFalsey(stack[sp - 1])) {
+                        pc = instruction >>> 8;
+                    } else {
+                        sp--;
+                    }
+                }
+
+                case OpCode.CALL -> {
+                    int count = instruction >>> 8;
+                    int callee = sp - count - 1;
+                    Object target = stack[callee] == OBJ ? refs[callee] : null;
+
+                    // Methods find their receiver in the callee's slot.
+                    if (target instanceof BoundMethod bound) {
+                        refs[callee] = bound.receiver;
+                        target = bound.method;
+                    } else if (target instanceof VmClass klass) {
+                        VmInstance instance = new VmInstance(klass);
+                        Closure initializer = klass.findMethod(VmClass.INIT);
+
+                        refs[callee] = instance;
+
+                        if (initializer == null) {
+                            if (count != 0)
+                                throw error(proto, pc, "Expected 0 arguments but got " + count + ".");
+
+                            sp = callee + 1;
+                            continue;
+                        }
+
+                        target = initializer;
+                    } else if (target instanceof NativeFunction function) {
+                        if (count != function.arity)
+                            throw error(proto, pc, "Expected " + function.arity + " arguments but got " + count + ".");
+
+                        Object[] arguments = new Object[count];
+                        for (int i = 0; i < count; i++) {
+                            arguments[i] = toObject(stack[callee + 1 + i], refs[callee + 1 + i]);
+                        }
+
+                        Object result = function.body.apply(arguments);
+                        stack[callee] = tag(result);
+                        refs[callee] = result;
+                        sp = callee + 1;
+                        continue;
+                    }
+
+                    if (!(target instanceof Closure function))
+                        throw error(proto, pc, "Can only call functions and classes.");
+
+                    if (count != function.proto.arity)
+                        throw error(proto, pc, "Expected " + function.proto.arity + " arguments but got " + count + ".");
+
+                    if (depth == maxCallDepth)
+                        throw error(proto, pc, "Stack overflow.");
+
+                    ensureCallStack(depth);
+                    callClosures[depth] = closure;
+                    callPcs[depth] = pc;
+                    callBases[depth] = base;
+                    callFrames[depth] = frame;
+                    depth++;
+
+                    closure = function;
+                    proto = function.proto;
+                    code = proto.code;
+                    pc = 0;
+                    base = proto.method ? callee : callee + 1;
+
+                    if (base + proto.maxStack > stack.length) {
+                        ensureStack(base + proto.maxStack);
+                        stack = this.stack;
+                        refs = this.refs;
+                    }
+
+                    if (proto.frameSize >= 0) {
+                        frame = new Frame(function.env, proto.frameSize);
+                        int parameters = sp - base;
+                        System.arraycopy(stack, base, frame.values, 0, parameters);
+                        System.arraycopy(refs, base, frame.refs, 0, parameters);
+                        sp = base;
+                    } else {
+                        frame = function.env;
+                    }
+                }
+                case OpCode.RETURN -> {
+                    long result = stack[sp - 1];
+                    Object resultRef = refs[sp - 1];
+
+                    if (depth == 0)
+                        return;
+
+                    sp = proto.method ? base : base - 1;
+                    stack[sp] = result;
+                    refs[sp] = resultRef;
+                    sp++;
+
+                    depth--;
+                    closure = callClosures[depth];
+                    pc = callPcs[depth];
+                    base = callBases[depth];
+                    frame = callFrames[depth];
+                    callClosures[depth] = null;
+                    callFrames[depth] = null;
+
+                    proto = closure.proto;
+                    code = proto.code;
+                }
+                case OpCode.CLOSURE -> {
+                    stack[sp] = OBJ;
+                    refs[sp] = new Closure((Proto) proto.constantRefs[instruction >>> 8], frame);
+                    sp++;
+                }
+                case OpCode.CLASS -> {
+                    stack[sp] = OBJ;
+                    refs[sp] = new VmClass((String) proto.constantRefs[instruction >>> 8], null);
+                    sp++;
+                }
+                case OpCode.SUBCLASS -> {
+                    if (stack[sp - 1] != OBJ || !(refs[sp - 1] instanceof VmClass superclass))
+                        throw error(proto, pc, "Superclass must be a class.");
+
+                    stack[sp - 1] = OBJ;
+                    refs[sp - 1] = new VmClass((String) proto.constantRefs[instruction >>> 8], superclass);
+                }
+                case OpCode.PUSH_SUPER -> {
+                    frame = new Frame(frame, 1);
+                    frame.values[0] = OBJ;
+                    frame.refs[0] = ((VmClass) refs[sp - 1]).superclass;
+                }
+                case OpCode.METHOD -> {
+                    sp--;
+                    ((VmClass) refs[sp - 1]).methods.put((Symbol) proto.constantRefs[instruction >>> 8], (Closure) refs[sp]);
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + (instruction & 0xFF) + ".");
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.craftinginterpreters.lox.vm;
+
+import com.craftinginterpreters.lox.lexer.Symbol;
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+final class VmClass {
+
+    static final Symbol INIT = Symbol.intern("init");
+
+    final String name;
+    final VmClass superclass;
+    final SymbolMap<Closure> methods = new SymbolMap<>();
+
+    VmClass(String name, VmClass superclass) {
+        this.name = name;
+        this.superclass = superclass;
+    }
+
+    Closure findMethod(Symbol name) {
+        for (VmClass klass = this; klass != null; klass = klass.superclass) {
+            Closure method = klass.methods.get(name);
+
+            if (method != null)
+                return method;
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,18 @@
+package com.craftinginterpreters.lox.vm;
+
+import com.craftinginterpreters.lox.util.SymbolMap;
+
+final class VmInstance {
+
+    final VmClass klass;
+    final SymbolMap<Object> fields = new SymbolMap<>();
+
+    VmInstance(VmClass klass) {
+        this.klass = klass;
+    }
+
+    @Override
+    public String toString() {
+        return klass.name + " instance";
+    }
+}